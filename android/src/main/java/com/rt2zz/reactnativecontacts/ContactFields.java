@@ -0,0 +1,233 @@
+package com.rt2zz.reactnativecontacts;
+
+import android.provider.ContactsContract;
+import android.text.TextUtils;
+
+import com.facebook.react.bridge.ReadableArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static android.provider.ContactsContract.CommonDataKinds.Contactables;
+import static android.provider.ContactsContract.CommonDataKinds.Email;
+import static android.provider.ContactsContract.CommonDataKinds.Event;
+import static android.provider.ContactsContract.CommonDataKinds.Im;
+import static android.provider.ContactsContract.CommonDataKinds.Note;
+import static android.provider.ContactsContract.CommonDataKinds.Organization;
+import static android.provider.ContactsContract.CommonDataKinds.Phone;
+import static android.provider.ContactsContract.CommonDataKinds.StructuredName;
+import static android.provider.ContactsContract.CommonDataKinds.StructuredPostal;
+import static android.provider.ContactsContract.CommonDataKinds.Website;
+
+/**
+ * The set of contact fields a read should return.
+ * Drives the Data projection, the MIME types selected and the sections written by <code>toMap</code>.
+ * Record id, display name, thumbnail, starred flag and the structured name are always read.
+ */
+public class ContactFields {
+    public static final String PHONE_NUMBERS = "phoneNumbers";
+    public static final String EMAIL_ADDRESSES = "emailAddresses";
+    public static final String ORGANIZATION = "organization";
+    public static final String POSTAL_ADDRESSES = "postalAddresses";
+    public static final String NOTE = "note";
+    public static final String URL_ADDRESSES = "urlAddresses";
+    public static final String IM_ADDRESSES = "imAddresses";
+    public static final String BIRTHDAY = "birthday";
+
+    private static final List<String> BASE_COLUMNS = Arrays.asList(
+            ContactsContract.Data._ID,
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.RAW_CONTACT_ID,
+            ContactsContract.Data.LOOKUP_KEY,
+            ContactsContract.Data.STARRED,
+            ContactsContract.Contacts.Data.MIMETYPE,
+            ContactsContract.Profile.DISPLAY_NAME,
+            Contactables.PHOTO_URI,
+            StructuredName.DISPLAY_NAME,
+            StructuredName.GIVEN_NAME,
+            StructuredName.MIDDLE_NAME,
+            StructuredName.FAMILY_NAME,
+            StructuredName.PREFIX,
+            StructuredName.SUFFIX);
+
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+    private static final Map<String, List<String>> COLUMNS = new HashMap<>();
+
+    static {
+        MIME_TYPES.put(PHONE_NUMBERS, Phone.CONTENT_ITEM_TYPE);
+        COLUMNS.put(PHONE_NUMBERS, Arrays.asList(Phone.NUMBER, Phone.NORMALIZED_NUMBER, Phone.TYPE, Phone.LABEL));
+
+        MIME_TYPES.put(EMAIL_ADDRESSES, Email.CONTENT_ITEM_TYPE);
+        COLUMNS.put(EMAIL_ADDRESSES, Arrays.asList(Email.DATA, Email.ADDRESS, Email.TYPE, Email.LABEL));
+
+        MIME_TYPES.put(ORGANIZATION, Organization.CONTENT_ITEM_TYPE);
+        COLUMNS.put(ORGANIZATION, Arrays.asList(Organization.COMPANY, Organization.TITLE, Organization.DEPARTMENT));
+
+        MIME_TYPES.put(POSTAL_ADDRESSES, StructuredPostal.CONTENT_ITEM_TYPE);
+        COLUMNS.put(POSTAL_ADDRESSES, Arrays.asList(
+                StructuredPostal.FORMATTED_ADDRESS,
+                StructuredPostal.TYPE,
+                StructuredPostal.LABEL,
+                StructuredPostal.STREET,
+                StructuredPostal.POBOX,
+                StructuredPostal.NEIGHBORHOOD,
+                StructuredPostal.CITY,
+                StructuredPostal.REGION,
+                StructuredPostal.POSTCODE,
+                StructuredPostal.COUNTRY));
+
+        MIME_TYPES.put(NOTE, Note.CONTENT_ITEM_TYPE);
+        COLUMNS.put(NOTE, Collections.singletonList(Note.NOTE));
+
+        MIME_TYPES.put(URL_ADDRESSES, Website.CONTENT_ITEM_TYPE);
+        COLUMNS.put(URL_ADDRESSES, Arrays.asList(Website.URL, Website.TYPE, Website.LABEL));
+
+        MIME_TYPES.put(IM_ADDRESSES, Im.CONTENT_ITEM_TYPE);
+        COLUMNS.put(IM_ADDRESSES, Arrays.asList(Im.DATA, Im.PROTOCOL, Im.CUSTOM_PROTOCOL));
+
+        MIME_TYPES.put(BIRTHDAY, Event.CONTENT_ITEM_TYPE);
+        COLUMNS.put(BIRTHDAY, Arrays.asList(Event.START_DATE, Event.TYPE));
+    }
+
+    /*
+     * JS record keys that map onto one of the groups above
+     */
+    private static final Map<String, String> ALIASES = new HashMap<>();
+
+    static {
+        ALIASES.put("company", ORGANIZATION);
+        ALIASES.put("jobTitle", ORGANIZATION);
+        ALIASES.put("department", ORGANIZATION);
+    }
+
+    /*
+     * always part of the record, accepted so callers can list them without an error
+     */
+    private static final Set<String> BASE_FIELDS = new LinkedHashSet<>(Arrays.asList(
+            "recordID", "rawContactId", "displayName", "givenName", "middleName", "familyName",
+            "prefix", "suffix", "hasThumbnail", "thumbnailPath", "isStarred"));
+
+    public static final ContactFields ALL = new ContactFields(new LinkedHashSet<>(Arrays.asList(
+            EMAIL_ADDRESSES,
+            PHONE_NUMBERS,
+            ORGANIZATION,
+            POSTAL_ADDRESSES,
+            NOTE,
+            URL_ADDRESSES,
+            IM_ADDRESSES,
+            BIRTHDAY)));
+
+    /*
+     * names and company, what ContactsSearchIndex needs
+     */
+    static final ContactFields SEARCH_INDEX = new ContactFields(Collections.singleton(ORGANIZATION));
+
+    private final Set<String> groups;
+    private final String[] projection;
+    private final String mimeTypeSelection;
+    private final String[] mimeTypeSelectionArgs;
+    private final String key;
+
+    private ContactFields(Set<String> groups) {
+        this.groups = groups;
+        this.key = TextUtils.join(",", new TreeSet<>(groups));
+
+        Set<String> columns = new LinkedHashSet<>(BASE_COLUMNS);
+        List<String> mimeTypes = new ArrayList<>();
+        mimeTypes.add(StructuredName.CONTENT_ITEM_TYPE);
+        for (String group : groups) {
+            columns.addAll(COLUMNS.get(group));
+            mimeTypes.add(MIME_TYPES.get(group));
+        }
+        this.projection = columns.toArray(new String[columns.size()]);
+
+        StringBuilder selection = new StringBuilder(ContactsContract.Data.MIMETYPE).append(" IN (");
+        for (int i = 0; i < mimeTypes.size(); i++) {
+            selection.append(i == 0 ? "?" : ",?");
+        }
+        this.mimeTypeSelection = selection.append(")").toString();
+        this.mimeTypeSelectionArgs = mimeTypes.toArray(new String[mimeTypes.size()]);
+    }
+
+    /**
+     * @param fields JS record keys, e.g. <code>["phoneNumbers", "company"]</code>; <code>null</code> selects every field
+     * @throws IllegalArgumentException for an unknown field
+     */
+    public static ContactFields fromArray(ReadableArray fields) {
+        if (fields == null) {
+            return ALL;
+        }
+
+        Set<String> groups = new LinkedHashSet<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.getString(i);
+            if (ALIASES.containsKey(field)) {
+                groups.add(ALIASES.get(field));
+            } else if (MIME_TYPES.containsKey(field)) {
+                groups.add(field);
+            } else if (!BASE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown contact field: " + field);
+            }
+        }
+        return groups.equals(ALL.groups) ? ALL : new ContactFields(groups);
+    }
+
+    public boolean includes(String group) {
+        return groups.contains(group);
+    }
+
+    /**
+     * @return these fields plus <code>group</code>
+     */
+    public ContactFields with(String group) {
+        if (includes(group)) {
+            return this;
+        }
+        Set<String> withGroup = new LinkedHashSet<>(groups);
+        withGroup.add(group);
+        return withGroup.equals(ALL.groups) ? ALL : new ContactFields(withGroup);
+    }
+
+    /**
+     * @return the selected groups in a fixed order, the same for selections listing them in any order
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String[] getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return <code>mimetype IN (...)</code> clause, bound with {@link #getMimeTypeSelectionArgs()}
+     */
+    public String getMimeTypeSelection() {
+        return mimeTypeSelection;
+    }
+
+    public String[] getMimeTypeSelectionArgs() {
+        return mimeTypeSelectionArgs;
+    }
+
+    /**
+     * Combines <code>selection</code> with the MIME type clause, returning the merged arguments.
+     */
+    String[] withMimeTypeArgs(String... selectionArgs) {
+        String[] args = new String[selectionArgs.length + mimeTypeSelectionArgs.length];
+        System.arraycopy(selectionArgs, 0, args, 0, selectionArgs.length);
+        System.arraycopy(mimeTypeSelectionArgs, 0, args, selectionArgs.length, mimeTypeSelectionArgs.length);
+        return args;
+    }
+
+    String withMimeTypeSelection(String selection) {
+        return "(" + selection + ") AND " + mimeTypeSelection;
+    }
+}
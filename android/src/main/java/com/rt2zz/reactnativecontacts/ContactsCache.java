@@ -0,0 +1,176 @@
+package com.rt2zz.reactnativecontacts;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.provider.ContactsContract;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Opt-in in-memory cache of decoded contacts, keyed by contact id.
+ * Holds up to a memory budget of contacts with LRU eviction and is dropped as soon as the
+ * contacts provider reports a change.
+ * <p>
+ * Besides single contacts it remembers the id list of the last full read, which is answered from
+ * memory as long as all of its contacts are still cached, and the results of recent searches.
+ * Search results only hold the Data rows that matched, so they are kept apart from the full contacts.
+ */
+public class ContactsCache {
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private final ContentResolver contentResolver;
+    private final ContentObserver observer = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange) {
+            invalidate();
+        }
+    };
+
+    private LruCache<String, ContactsProvider.Contact> contacts;
+    private LruCache<String, List<ContactsProvider.Contact>> queries;
+    private List<String> allContactIds;
+    private long generation;
+    private int evictions;
+
+    public ContactsCache(ContentResolver contentResolver) {
+        this.contentResolver = contentResolver;
+    }
+
+    /**
+     * Starts caching, or changes the memory budget of an enabled cache.
+     *
+     * @param maxBytes approximate memory budget, a quarter of it goes to search results
+     */
+    public synchronized void enable(int maxBytes) {
+        int queriesMaxBytes = Math.max(1, maxBytes / 4);
+        int contactsMaxBytes = Math.max(1, maxBytes - queriesMaxBytes);
+        if (contacts != null) {
+            contacts.resize(contactsMaxBytes);
+            queries.resize(queriesMaxBytes);
+            return;
+        }
+
+        contacts = new LruCache<String, ContactsProvider.Contact>(contactsMaxBytes) {
+            @Override
+            protected int sizeOf(String key, ContactsProvider.Contact contact) {
+                return contact.estimateSize();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, ContactsProvider.Contact oldValue,
+                                        ContactsProvider.Contact newValue) {
+                if (evicted) {
+                    evictions++;
+                    allContactIds = null;
+                }
+            }
+        };
+        queries = new LruCache<String, List<ContactsProvider.Contact>>(queriesMaxBytes) {
+            @Override
+            protected int sizeOf(String key, List<ContactsProvider.Contact> result) {
+                int size = 64 + 2 * key.length();
+                for (ContactsProvider.Contact contact : result) {
+                    size += contact.estimateSize();
+                }
+                return size;
+            }
+        };
+        contentResolver.registerContentObserver(ContactsContract.Contacts.CONTENT_URI, true, observer);
+        contentResolver.registerContentObserver(ContactsContract.Profile.CONTENT_URI, true, observer);
+    }
+
+    public synchronized void disable() {
+        if (contacts == null) {
+            return;
+        }
+        contentResolver.unregisterContentObserver(observer);
+        invalidate();
+        contacts = null;
+        queries = null;
+    }
+
+    public synchronized boolean isEnabled() {
+        return contacts != null;
+    }
+
+    /**
+     * Drops everything cached. Reads that started before the call will not store their results.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        allContactIds = null;
+        if (contacts != null) {
+            contacts.evictAll();
+            queries.evictAll();
+        }
+    }
+
+    /**
+     * @return token to pass to the <code>put</code> methods, so results of a read that raced with an
+     * invalidation are not stored
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    synchronized ContactsProvider.Contact get(String contactId) {
+        return contacts != null ? contacts.get(contactId) : null;
+    }
+
+    synchronized void put(long generation, ContactsProvider.Contact contact) {
+        if (contacts != null && generation == this.generation) {
+            contacts.put(contact.getContactId(), contact);
+        }
+    }
+
+    /**
+     * @return every contact in address book order, or <code>null</code> if they are not all cached
+     */
+    synchronized List<ContactsProvider.Contact> getAll() {
+        return allContactIds != null ? resolve(allContactIds) : null;
+    }
+
+    synchronized void putAll(long generation, Collection<ContactsProvider.Contact> all) {
+        if (contacts == null || generation != this.generation) {
+            return;
+        }
+
+        int evictionsBefore = evictions;
+        List<String> contactIds = new ArrayList<>(all.size());
+        for (ContactsProvider.Contact contact : all) {
+            contacts.put(contact.getContactId(), contact);
+            contactIds.add(contact.getContactId());
+        }
+        // the budget is too small for the whole address book
+        allContactIds = evictions == evictionsBefore ? contactIds : null;
+    }
+
+    /**
+     * @param key search method and its argument
+     * @return the cached result of the search, or <code>null</code>
+     */
+    synchronized List<ContactsProvider.Contact> getQuery(String key) {
+        return queries != null ? queries.get(key) : null;
+    }
+
+    synchronized void putQuery(long generation, String key, Collection<ContactsProvider.Contact> result) {
+        if (queries != null && generation == this.generation) {
+            queries.put(key, new ArrayList<>(result));
+        }
+    }
+
+    private List<ContactsProvider.Contact> resolve(List<String> contactIds) {
+        List<ContactsProvider.Contact> result = new ArrayList<>(contactIds.size());
+        for (String contactId : contactIds) {
+            ContactsProvider.Contact contact = contacts.get(contactId);
+            if (contact == null) {
+                return null;
+            }
+            result.add(contact);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,230 @@
+package com.rt2zz.reactnativecontacts;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and volume metrics of the module methods, kept in lock-free histograms.
+ * <p>
+ * {@link ContactsScheduler} opens a {@link Call} on the worker thread for every task it runs and records its queue wait
+ * and run time when it ends. While the call is open, {@link ContactsProvider} adds the time spent in
+ * <code>ContentResolver.query</code>, iterating cursors and converting contacts to bridge maps, the rows it read,
+ * and the contacts it emitted with their estimated size. A call is only touched by its own thread, so recording
+ * costs a few additions; the totals are folded into the histograms of the method once it ends.
+ */
+public class ContactsMetrics {
+    private static final ThreadLocal<Call> CURRENT = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private volatile long since = System.currentTimeMillis();
+
+    /**
+     * What one method call spent, filled in by the thread running it.
+     */
+    public static class Call {
+        final String method;
+        final long waitNanos;
+        final long startedAt = System.nanoTime();
+        long queryNanos;
+        long iterationNanos;
+        long serializationNanos;
+        long rowsRead;
+        long contactsEmitted;
+        long bytesMarshalled;
+
+        Call(String method, long waitNanos) {
+            this.method = method;
+            this.waitNanos = waitNanos;
+        }
+
+        void queried(long nanos) {
+            queryNanos += nanos;
+        }
+
+        void iterated(long nanos, long rows) {
+            iterationNanos += nanos;
+            rowsRead += rows;
+        }
+
+        void serialized(long nanos, long contacts, long bytes) {
+            serializationNanos += nanos;
+            contactsEmitted += contacts;
+            bytesMarshalled += bytes;
+        }
+    }
+
+    private static class MethodMetrics {
+        final Histogram queueWaitMicros = new Histogram();
+        final Histogram latencyMicros = new Histogram();
+        final Histogram queryMicros = new Histogram();
+        final Histogram iterationMicros = new Histogram();
+        final Histogram serializationMicros = new Histogram();
+        final Histogram rowsRead = new Histogram();
+        final Histogram contactsEmitted = new Histogram();
+        final Histogram bytesMarshalled = new Histogram();
+    }
+
+    /**
+     * @return the call open on this thread, <code>null</code> outside of scheduled tasks
+     */
+    static Call current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Opens a call on this thread.
+     *
+     * @param waitNanos time the task spent queued
+     */
+    public Call begin(String method, long waitNanos) {
+        Call call = new Call(method, waitNanos);
+        CURRENT.set(call);
+        return call;
+    }
+
+    /**
+     * Closes the call of this thread and records it.
+     */
+    public void end(Call call) {
+        CURRENT.remove();
+        long latencyNanos = System.nanoTime() - call.startedAt;
+
+        MethodMetrics metrics = methods.get(call.method);
+        if (metrics == null) {
+            MethodMetrics created = new MethodMetrics();
+            metrics = methods.putIfAbsent(call.method, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        metrics.queueWaitMicros.record(call.waitNanos / 1000);
+        metrics.latencyMicros.record(latencyNanos / 1000);
+        metrics.queryMicros.record(call.queryNanos / 1000);
+        metrics.iterationMicros.record(call.iterationNanos / 1000);
+        metrics.serializationMicros.record(call.serializationNanos / 1000);
+        metrics.rowsRead.record(call.rowsRead);
+        metrics.contactsEmitted.record(call.contactsEmitted);
+        metrics.bytesMarshalled.record(call.bytesMarshalled);
+    }
+
+    /**
+     * @return <code>since</code>, the time of the last reset, and <code>methods</code> by name, each holding the
+     * histograms <code>queueWaitMs</code>, <code>latencyMs</code>, <code>queryMs</code>, <code>iterationMs</code>,
+     * <code>serializationMs</code>, <code>rowsRead</code>, <code>contactsEmitted</code> and
+     * <code>bytesMarshalled</code> with one value per call
+     */
+    public WritableMap toMap() {
+        WritableMap result = Arguments.createMap();
+        result.putDouble("since", since);
+        WritableMap byMethod = Arguments.createMap();
+        for (Map.Entry<String, MethodMetrics> entry : methods.entrySet()) {
+            MethodMetrics metrics = entry.getValue();
+            WritableMap method = Arguments.createMap();
+            method.putMap("queueWaitMs", metrics.queueWaitMicros.toMap(1000));
+            method.putMap("latencyMs", metrics.latencyMicros.toMap(1000));
+            method.putMap("queryMs", metrics.queryMicros.toMap(1000));
+            method.putMap("iterationMs", metrics.iterationMicros.toMap(1000));
+            method.putMap("serializationMs", metrics.serializationMicros.toMap(1000));
+            method.putMap("rowsRead", metrics.rowsRead.toMap(1));
+            method.putMap("contactsEmitted", metrics.contactsEmitted.toMap(1));
+            method.putMap("bytesMarshalled", metrics.bytesMarshalled.toMap(1));
+            byMethod.putMap(entry.getKey(), method);
+        }
+        result.putMap("methods", byMethod);
+        return result;
+    }
+
+    /**
+     * Drops everything recorded so far. Calls ending meanwhile may be kept in part.
+     */
+    public void reset() {
+        methods.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Histogram of non-negative values in log-linear buckets, like HdrHistogram: every power of two is split into
+     * {@link #SUB_BUCKETS} buckets, so a value is reported within 1/{@link #SUB_BUCKETS} of itself. Recording takes
+     * a few atomic increments and never blocks.
+     */
+    static class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            value = Math.max(value, 0);
+            counts.incrementAndGet(indexOf(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long currentMax = max.get();
+            while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+                currentMax = max.get();
+            }
+        }
+
+        static int indexOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        /*
+         * largest value that falls into the bucket
+         */
+        static long highestValueAt(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / SUB_BUCKETS - 1;
+            long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+
+        long percentile(double percentile) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        /**
+         * @param unit divisor turning recorded values into reported ones
+         * @return <code>count</code>, <code>total</code>, <code>mean</code>, <code>p50</code>, <code>p90</code>,
+         * <code>p99</code> and <code>max</code>
+         */
+        WritableMap toMap(double unit) {
+            long total = count.get();
+            WritableMap map = Arguments.createMap();
+            map.putDouble("count", total);
+            map.putDouble("total", sum.get() / unit);
+            map.putDouble("mean", total > 0 ? sum.get() / unit / total : 0);
+            map.putDouble("p50", percentile(50) / unit);
+            map.putDouble("p90", percentile(90) / unit);
+            map.putDouble("p99", percentile(99) / unit);
+            map.putDouble("max", max.get() / unit);
+            return map;
+        }
+    }
+}
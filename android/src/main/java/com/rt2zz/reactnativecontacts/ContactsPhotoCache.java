@@ -0,0 +1,239 @@
+package com.rt2zz.reactnativecontacts;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.provider.ContactsContract;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Disk cache of contact photos downsampled to the pixel size a list cell displays.
+ * <p>
+ * Encoded JPEGs are kept in the app cache directory, keyed by contact id, photo id and size, so a new photo never
+ * hits an old entry and the files can be handed to the image pipeline as they are. Only paths are handed out, so
+ * decoded bitmaps are not kept. The cache drops its least recently used files once it grows over its budget.
+ */
+public class ContactsPhotoCache {
+    public static final long DEFAULT_MAX_DISK_BYTES = 32 * 1024 * 1024;
+    // sizes up to the provider thumbnail are decoded from the thumbnail, larger ones from the display photo
+    private static final int THUMBNAIL_SIZE = 96;
+    private static final int JPEG_QUALITY = 90;
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final ContentResolver contentResolver;
+    private final File directory;
+    private long maxDiskBytes = DEFAULT_MAX_DISK_BYTES;
+    private long diskBytes = -1;
+
+    public ContactsPhotoCache(ContentResolver contentResolver, File directory) {
+        this.contentResolver = contentResolver;
+        this.directory = directory;
+    }
+
+    /**
+     * Changes the disk budget, trimming the cache right away if it shrinks.
+     */
+    public synchronized void configure(long maxDiskBytes) {
+        this.maxDiskBytes = Math.max(maxDiskBytes, 0);
+        trimDisk();
+    }
+
+    /**
+     * @param size smallest edge of the photo in pixels
+     * @return absolute path of a JPEG file holding the contact photo at <code>size</code>, or <code>null</code>
+     * if the contact has no photo
+     */
+    public String getPhotoPath(String contactId, int size) throws IOException {
+        String photoKey = getPhotoKey(contactId);
+        if (photoKey == null) {
+            return null;
+        }
+
+        String key = contactId + "_" + photoKey + "_" + size;
+        File file = new File(directory, key + ".jpg");
+        if (file.isFile()) {
+            file.setLastModified(System.currentTimeMillis());
+            return file.getAbsolutePath();
+        }
+
+        Bitmap bitmap = getBitmap(contactId, size);
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            write(file, bitmap);
+        } finally {
+            bitmap.recycle();
+        }
+        return file.getAbsolutePath();
+    }
+
+    private Bitmap getBitmap(String contactId, int size) throws IOException {
+        Uri uri = ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, Long.parseLong(contactId));
+        byte[] data;
+        try (InputStream in = ContactsContract.Contacts.openContactPhotoInputStream(contentResolver, uri,
+                size > THUMBNAIL_SIZE)) {
+            if (in == null) {
+                return null;
+            }
+            data = readFully(in);
+        }
+
+        return decodeSampled(data, size);
+    }
+
+    /*
+     * PHOTO_FILE_ID identifies display photos, PHOTO_ID contacts with a thumbnail only; both change with the photo
+     */
+    private String getPhotoKey(String contactId) {
+        Uri uri = ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, Long.parseLong(contactId));
+        Cursor cursor = contentResolver.query(
+                uri,
+                new String[] { ContactsContract.Contacts.PHOTO_FILE_ID, ContactsContract.Contacts.PHOTO_ID },
+                null,
+                null,
+                null);
+
+        try {
+            if (cursor == null || !cursor.moveToFirst()) {
+                return null;
+            }
+            if (!cursor.isNull(0)) {
+                return "f" + cursor.getLong(0);
+            }
+            if (!cursor.isNull(1)) {
+                return "p" + cursor.getLong(1);
+            }
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /*
+     * decodes at the largest power of two subsampling keeping both edges at least size, then scales the smaller
+     * edge down to size
+     */
+    public static Bitmap decodeSampled(byte[] data, int size) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, size);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        int shortEdge = Math.min(bitmap.getWidth(), bitmap.getHeight());
+        if (shortEdge <= size) {
+            return bitmap;
+        }
+        float scale = (float) size / shortEdge;
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)),
+                true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    static int calculateInSampleSize(int width, int height, int size) {
+        int inSampleSize = 1;
+        while (Math.min(width, height) / (inSampleSize * 2) >= size) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /*
+     * writes to a temporary file first, so concurrent readers never see a partial photo
+     */
+    private void write(File file, Bitmap bitmap) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        File tmp = new File(directory, file.getName() + "." + Thread.currentThread().getId() + TMP_SUFFIX);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not write " + file);
+        }
+
+        synchronized (this) {
+            if (diskBytes >= 0) {
+                diskBytes += file.length();
+            }
+            trimDisk();
+        }
+    }
+
+    /*
+     * temporary files are left alone, another thread is still writing them
+     */
+    private void trimDisk() {
+        if (diskBytes < 0) {
+            diskBytes = 0;
+            File[] files = listPhotos();
+            if (files != null) {
+                for (File file : files) {
+                    diskBytes += file.length();
+                }
+            }
+        }
+        if (diskBytes <= maxDiskBytes) {
+            return;
+        }
+
+        File[] files = listPhotos();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (diskBytes <= maxDiskBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    private File[] listPhotos() {
+        return directory.listFiles((dir, name) -> !name.endsWith(TMP_SUFFIX));
+    }
+
+    public static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
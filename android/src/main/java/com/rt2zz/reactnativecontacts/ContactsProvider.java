@@ -4,6 +4,10 @@ import android.content.ContentResolver;
 import android.content.res.Resources;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
 import android.provider.ContactsContract;
 import androidx.annotation.NonNull;
 import android.text.TextUtils;
@@ -13,11 +17,20 @@ import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import static android.provider.ContactsContract.CommonDataKinds.Contactables;
 import static android.provider.ContactsContract.CommonDataKinds.Email;
@@ -34,57 +47,19 @@ public class ContactsProvider {
     public static final int ID_FOR_PROFILE_CONTACT = -1;
 
     public static final String NAME = "RCTContacts";
-    private static final List<String> JUST_ME_PROJECTION = new ArrayList<String>() {
-        {
-            add((ContactsContract.Data._ID));
-            add(ContactsContract.Data.CONTACT_ID);
-            add(ContactsContract.Data.RAW_CONTACT_ID);
-            add(ContactsContract.Data.LOOKUP_KEY);
-            add(ContactsContract.Data.STARRED);
-            add(ContactsContract.Contacts.Data.MIMETYPE);
-            add(ContactsContract.Profile.DISPLAY_NAME);
-            add(Contactables.PHOTO_URI);
-            add(StructuredName.DISPLAY_NAME);
-            add(StructuredName.GIVEN_NAME);
-            add(StructuredName.MIDDLE_NAME);
-            add(StructuredName.FAMILY_NAME);
-            add(StructuredName.PREFIX);
-            add(StructuredName.SUFFIX);
-            add(Phone.NUMBER);
-            add(Phone.NORMALIZED_NUMBER);
-            add(Phone.TYPE);
-            add(Phone.LABEL);
-            add(Email.DATA);
-            add(Email.ADDRESS);
-            add(Email.TYPE);
-            add(Email.LABEL);
-            add(Organization.COMPANY);
-            add(Organization.TITLE);
-            add(Organization.DEPARTMENT);
-            add(StructuredPostal.FORMATTED_ADDRESS);
-            add(StructuredPostal.TYPE);
-            add(StructuredPostal.LABEL);
-            add(StructuredPostal.STREET);
-            add(StructuredPostal.POBOX);
-            add(StructuredPostal.NEIGHBORHOOD);
-            add(StructuredPostal.CITY);
-            add(StructuredPostal.REGION);
-            add(StructuredPostal.POSTCODE);
-            add(StructuredPostal.COUNTRY);
-            add(Note.NOTE);
-            add(Website.URL);
-            add(Im.DATA);
-            add(Event.START_DATE);
-            add(Event.TYPE);
-        }
-    };
-
-    private static final List<String> FULL_PROJECTION = new ArrayList<String>() {
-        {
-            addAll(JUST_ME_PROJECTION);
-        }
-    };
-
+    /*
+     * keeps IN (...) queries below SQLite's default limit of 999 bound parameters
+     */
+    private static final int MAX_IDS_PER_QUERY = 500;
+    /*
+     * rows read between two checks of the cancellation signal and the deadline
+     */
+    private static final int INTERRUPT_CHECK_INTERVAL = 64;
+
+    public static final String SORT_DISPLAY_NAME = "displayName";
+    public static final String SORT_DISPLAY_NAME_ALTERNATIVE = "displayNameAlternative";
+    public static final String SORT_FAMILY_NAME = "familyName";
+    public static final String SORT_LAST_UPDATED = "lastUpdated";
     private static final List<String> PHOTO_PROJECTION = new ArrayList<String>() {
         {
             add(Contactables.PHOTO_URI);
@@ -92,24 +67,116 @@ public class ContactsProvider {
     };
 
     private final ContentResolver contentResolver;
+    private final ContactFields fields;
+    private final ContactsCache cache;
+    private final ContactsSearchIndex searchIndex;
+    private CancellationSignal cancellationSignal;
+    private long deadline;
+
+    public interface ContactsBatchListener {
+        void onBatch(WritableArray contacts);
+    }
+
+    /**
+     * Thrown by the reads of a provider when its deadline passes.
+     */
+    public static class DeadlineExceededException extends RuntimeException {
+        public DeadlineExceededException() {
+            super("Deadline exceeded");
+        }
+    }
 
     public ContactsProvider(ContentResolver contentResolver) {
+        this(contentResolver, ContactFields.ALL);
+    }
+
+    /**
+     * @param fields fields returned by the read methods of this provider
+     */
+    public ContactsProvider(ContentResolver contentResolver, ContactFields fields) {
+        this(contentResolver, fields, null);
+    }
+
+    /**
+     * @param fields fields returned by the read methods of this provider
+     * @param cache serves and stores the results of <code>getContacts</code>, <code>getContactById</code>
+     *              and the searches, <code>null</code> to always query the contacts provider
+     */
+    public ContactsProvider(ContentResolver contentResolver, ContactFields fields, ContactsCache cache) {
+        this(contentResolver, fields, cache, null);
+    }
+
+    /**
+     * @param searchIndex answers <code>getContactsMatchingString</code> when enabled
+     */
+    public ContactsProvider(ContentResolver contentResolver, ContactFields fields, ContactsCache cache,
+                            ContactsSearchIndex searchIndex) {
         this.contentResolver = contentResolver;
+        this.fields = fields;
+        this.cache = cache != null && cache.isEnabled() ? cache : null;
+        this.searchIndex = searchIndex != null && searchIndex.isEnabled() ? searchIndex : null;
+    }
+
+    /**
+     * Makes the queries of this provider, and the reading of their rows, throw an
+     * {@link OperationCanceledException} once <code>cancellationSignal</code> is cancelled.
+     */
+    public void setCancellationSignal(CancellationSignal cancellationSignal) {
+        this.cancellationSignal = cancellationSignal;
+    }
+
+    /**
+     * Makes the reading of rows throw a {@link DeadlineExceededException} once <code>deadline</code> passes, except
+     * for {@link #getContactsPartial(String)}, which returns what it read so far.
+     *
+     * @param deadline {@link SystemClock#uptimeMillis()} to stop at, 0 for none
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
     }
 
     public WritableArray getContactsMatchingString(String searchString) {
-        Map<String, Contact> matchingContacts;
-        {
-            Cursor cursor = contentResolver.query(
-                    ContactsContract.Data.CONTENT_URI,
-                    FULL_PROJECTION.toArray(new String[FULL_PROJECTION.size()]),
-                    ContactsContract.Contacts.DISPLAY_NAME_PRIMARY + " LIKE ? OR " +
-                            Organization.COMPANY + " LIKE ?",
-                    new String[] { "%" + searchString + "%", "%" + searchString + "%" },
+        if (searchIndex != null) {
+            return getContactsFromSearchIndex(searchString);
+        }
+        return getContactsMatching("matchingString:" + searchString, fields,
+                ContactsContract.Contacts.DISPLAY_NAME_PRIMARY + " LIKE ? OR " + Organization.COMPANY + " LIKE ?",
+                "%" + searchString + "%", "%" + searchString + "%");
+    }
+
+    public WritableArray getContactsByPhoneNumber(String phoneNumber) {
+        return getContactsMatching("phoneNumber:" + phoneNumber, fields.with(ContactFields.PHONE_NUMBERS),
+                ContactsContract.CommonDataKinds.Phone.NUMBER + " LIKE ? OR "
+                        + ContactsContract.CommonDataKinds.Phone.NORMALIZED_NUMBER + " LIKE ?",
+                "%" + phoneNumber + "%", "%" + phoneNumber + "%");
+    }
+
+    /**
+     * Finds the contacts owning <code>phoneNumber</code> through {@link ContactsContract.PhoneLookup}, which
+     * compares numbers the way the dialer does, ignoring formatting and country code differences, and is
+     * backed by an index in the contacts provider.
+     *
+     * @param substringFallback run the substring search of {@link #getContactsByPhoneNumber(String)} when
+     *                          there is no exact match
+     */
+    public WritableArray getContactsByPhoneNumberExact(String phoneNumber, boolean substringFallback) {
+        List<String> contactIds = new ArrayList<>();
+        if (!TextUtils.isEmpty(phoneNumber)) {
+            Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(phoneNumber));
+            Cursor cursor = query(
+                    uri,
+                    new String[] { ContactsContract.PhoneLookup._ID },
+                    null,
+                    null,
                     null);
 
             try {
-                matchingContacts = loadContactsFrom(cursor);
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    String contactId = cursor.getString(0);
+                    if (!contactIds.contains(contactId)) {
+                        contactIds.add(contactId);
+                    }
+                }
             } finally {
                 if (cursor != null) {
                     cursor.close();
@@ -117,22 +184,40 @@ public class ContactsProvider {
             }
         }
 
-        WritableArray contacts = Arguments.createArray();
-        for (Contact contact : matchingContacts.values()) {
-            contacts.pushMap(contact.toMap());
+        if (contactIds.isEmpty() && substringFallback) {
+            return getContactsByPhoneNumber(phoneNumber);
         }
-        return contacts;
+        return toArray(loadContactsInOrder(contactIds));
     }
 
-    public WritableArray getContactsByPhoneNumber(String phoneNumber) {
+    public WritableArray getContactsByEmailAddress(String emailAddress) {
+        return getContactsMatching("emailAddress:" + emailAddress, fields.with(ContactFields.EMAIL_ADDRESSES),
+                ContactsContract.CommonDataKinds.Email.ADDRESS + " LIKE ?",
+                "%" + emailAddress + "%");
+    }
+
+    /**
+     * Reads the contacts having a Data row that matches <code>selection</code>, answering from the
+     * cache when the same search ran before and nothing changed since.
+     *
+     * @param cacheKey identifies the search in the cache
+     * @param queryFields fields to query, must include the rows <code>selection</code> matches on
+     */
+    private WritableArray getContactsMatching(String cacheKey, ContactFields queryFields, String selection,
+                                              String... selectionArgs) {
+        List<Contact> cached = cache != null ? cache.getQuery(cacheKey) : null;
+        if (cached != null) {
+            return toArray(cached);
+        }
+
+        long generation = cache != null ? cache.getGeneration() : 0;
         Map<String, Contact> matchingContacts;
         {
-            Cursor cursor = contentResolver.query(
+            Cursor cursor = query(
                     ContactsContract.Data.CONTENT_URI,
-                    FULL_PROJECTION.toArray(new String[FULL_PROJECTION.size()]),
-                    ContactsContract.CommonDataKinds.Phone.NUMBER + " LIKE ? OR "
-                            + ContactsContract.CommonDataKinds.Phone.NORMALIZED_NUMBER + " LIKE ?",
-                    new String[] { "%" + phoneNumber + "%", "%" + phoneNumber + "%" },
+                    queryFields.getProjection(),
+                    queryFields.withMimeTypeSelection(selection),
+                    queryFields.withMimeTypeArgs(selectionArgs),
                     null);
 
             try {
@@ -144,37 +229,69 @@ public class ContactsProvider {
             }
         }
 
-        WritableArray contacts = Arguments.createArray();
-        for (Contact contact : matchingContacts.values()) {
-            contacts.pushMap(contact.toMap());
+        if (isCacheable()) {
+            cache.putQuery(generation, cacheKey, matchingContacts.values());
         }
-        return contacts;
+        return toArray(matchingContacts.values());
     }
 
-    public WritableArray getContactsByEmailAddress(String emailAddress) {
-        Map<String, Contact> matchingContacts;
-        {
-            Cursor cursor = contentResolver.query(
-                    ContactsContract.Data.CONTENT_URI,
-                    FULL_PROJECTION.toArray(new String[FULL_PROJECTION.size()]),
-                    ContactsContract.CommonDataKinds.Email.ADDRESS + " LIKE ?",
-                    new String[] { "%" + emailAddress + "%" },
-                    null);
+    /**
+     * Looks <code>searchString</code> up in the search index and reads only the matching contacts, in rank order.
+     */
+    private WritableArray getContactsFromSearchIndex(String searchString) {
+        updateSearchIndex();
+        return toArray(loadContactsInOrder(searchIndex.search(searchString)));
+    }
 
-            try {
-                matchingContacts = loadContactsFrom(cursor);
-            } finally {
-                if (cursor != null) {
-                    cursor.close();
-                }
+    /**
+     * Reads the given contacts in the given order, taking the ones already cached from the cache.
+     */
+    private List<Contact> loadContactsInOrder(List<String> contactIds) {
+        Map<String, Contact> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String contactId : contactIds) {
+            Contact cached = cache != null ? cache.get(contactId) : null;
+            if (cached != null) {
+                found.put(contactId, cached);
+            } else {
+                missing.add(contactId);
             }
         }
 
-        WritableArray contacts = Arguments.createArray();
-        for (Contact contact : matchingContacts.values()) {
-            contacts.pushMap(contact.toMap());
+        long generation = cache != null ? cache.getGeneration() : 0;
+        Map<String, Contact> loaded = loadContactsByIds(missing);
+        for (Contact contact : loaded.values()) {
+            if (isCacheable()) {
+                cache.put(generation, contact);
+            }
+        }
+        found.putAll(loaded);
+
+        List<Contact> ranked = new ArrayList<>(contactIds.size());
+        for (String contactId : contactIds) {
+            Contact contact = found.get(contactId);
+            if (contact != null) {
+                ranked.add(contact);
+            }
+        }
+        return ranked;
+    }
+
+    /*
+     * builds the search index on first use and applies the changes reported since then
+     */
+    private void updateSearchIndex() {
+        synchronized (searchIndex) {
+            ContactsProvider names = new ContactsProvider(contentResolver, ContactFields.SEARCH_INDEX);
+            if (!searchIndex.isBuilt()) {
+                searchIndex.takeDirty();
+                long timestamp = System.currentTimeMillis();
+                searchIndex.rebuild(timestamp, names.loadContacts());
+            } else if (searchIndex.takeDirty()) {
+                Changes changes = names.loadChangesSince(searchIndex.getTimestamp());
+                searchIndex.apply(changes.timestamp, changes.updated, changes.deletedIds);
+            }
         }
-        return contacts;
     }
 
     public WritableMap getContactByRawId(String contactRawId) {
@@ -183,7 +300,7 @@ public class ContactsProvider {
         String[] projections = new String[] { ContactsContract.RawContacts.CONTACT_ID };
         String select = ContactsContract.RawContacts._ID + "= ?";
         String[] selectionArgs = new String[] { contactRawId };
-        Cursor rawCursor = contentResolver.query(ContactsContract.RawContacts.CONTENT_URI, projections, select,
+        Cursor rawCursor = query(ContactsContract.RawContacts.CONTENT_URI, projections, select,
                 selectionArgs, null);
         String contactId = null;
         if (rawCursor.getCount() == 0) {
@@ -202,114 +319,882 @@ public class ContactsProvider {
 
         rawCursor.close();
 
-        // Now that we have the real contact id, fetch information
-        return getContactById(contactId);
+        // Now that we have the real contact id, fetch information
+        return getContactById(contactId);
+    }
+
+    public WritableMap getContactById(String contactId) {
+        Contact cached = cache != null ? cache.get(contactId) : null;
+        if (cached != null) {
+            return toMap(cached);
+        }
+
+        long generation = cache != null ? cache.getGeneration() : 0;
+        Map<String, Contact> matchingContacts;
+        {
+            Cursor cursor = query(
+                    ContactsContract.Data.CONTENT_URI,
+                    fields.getProjection(),
+                    fields.withMimeTypeSelection(ContactsContract.RawContacts.CONTACT_ID + " = ?"),
+                    fields.withMimeTypeArgs(contactId),
+                    null);
+
+            try {
+                matchingContacts = loadContactsFrom(cursor);
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        if (matchingContacts.values().size() > 0) {
+            Contact contact = matchingContacts.values().iterator().next();
+            if (isCacheable()) {
+                cache.put(generation, contact);
+            }
+            return toMap(contact);
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads several contacts at once, in as few queries as the SQLite parameter limit allows.
+     *
+     * @return map from each requested id to its contact, or <code>null</code> if it does not exist
+     */
+    public WritableMap getContactsByIds(List<String> contactIds) {
+        Map<String, Contact> found = new HashMap<>();
+        for (Contact contact : loadContactsInOrder(contactIds)) {
+            found.put(contact.getContactId(), contact);
+        }
+
+        WritableMap contacts = Arguments.createMap();
+        for (String contactId : contactIds) {
+            Contact contact = found.get(contactId);
+            if (contact != null) {
+                contacts.putMap(contactId, toMap(contact));
+            } else {
+                contacts.putNull(contactId);
+            }
+        }
+        return contacts;
+    }
+
+    public Integer getContactsCount() {
+        Cursor cursor = query(
+                ContactsContract.Contacts.CONTENT_URI,
+                new String[] { ContactsContract.Contacts._ID },
+                null,
+                null,
+                null);
+
+        try {
+            return cursor != null ? cursor.getCount() : 0;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Computes address book statistics with three narrow queries, one over each of the Contacts, Data and
+     * RawContacts tables. The contacts provider rejects aggregate expressions in projections, so rows are
+     * counted here, reading no more than one or two small columns per row.
+     *
+     * @return map holding <code>total</code>, <code>starred</code> and <code>withPhoneNumber</code> contact counts,
+     * Data row counts per MIME type as <code>byMimeType</code> and raw contact counts per account as
+     * <code>byAccount</code>
+     */
+    public WritableMap getStats() {
+        int total = 0;
+        int starred = 0;
+        int withPhoneNumber = 0;
+        {
+            Cursor cursor = query(
+                    ContactsContract.Contacts.CONTENT_URI,
+                    new String[] { ContactsContract.Contacts.STARRED, ContactsContract.Contacts.HAS_PHONE_NUMBER },
+                    null,
+                    null,
+                    null);
+
+            try {
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    total++;
+                    if (cursor.getInt(0) == 1) {
+                        starred++;
+                    }
+                    if (cursor.getInt(1) == 1) {
+                        withPhoneNumber++;
+                    }
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        Map<String, Integer> byMimeType = new LinkedHashMap<>();
+        {
+            Cursor cursor = query(
+                    ContactsContract.Data.CONTENT_URI,
+                    new String[] { ContactsContract.Data.MIMETYPE },
+                    null,
+                    null,
+                    null);
+
+            try {
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    increment(byMimeType, cursor.getString(0));
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        // account type and name joined by a line feed, which neither of them contains
+        Map<String, Integer> byAccount = new LinkedHashMap<>();
+        {
+            Cursor cursor = query(
+                    ContactsContract.RawContacts.CONTENT_URI,
+                    new String[] { ContactsContract.RawContacts.ACCOUNT_TYPE, ContactsContract.RawContacts.ACCOUNT_NAME },
+                    ContactsContract.RawContacts.DELETED + " = 0",
+                    null,
+                    null);
+
+            try {
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    String type = cursor.getString(0);
+                    String name = cursor.getString(1);
+                    increment(byAccount, (type != null ? type : "") + "\n" + (name != null ? name : ""));
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        WritableMap mimeTypes = Arguments.createMap();
+        for (Map.Entry<String, Integer> entry : byMimeType.entrySet()) {
+            mimeTypes.putInt(entry.getKey(), entry.getValue());
+        }
+
+        WritableArray accounts = Arguments.createArray();
+        for (Map.Entry<String, Integer> entry : byAccount.entrySet()) {
+            String[] typeAndName = entry.getKey().split("\n", 2);
+            WritableMap account = Arguments.createMap();
+            if (typeAndName[0].isEmpty()) {
+                account.putNull("type");
+            } else {
+                account.putString("type", typeAndName[0]);
+            }
+            if (typeAndName[1].isEmpty()) {
+                account.putNull("name");
+            } else {
+                account.putString("name", typeAndName[1]);
+            }
+            account.putInt("count", entry.getValue());
+            accounts.pushMap(account);
+        }
+
+        WritableMap stats = Arguments.createMap();
+        stats.putInt("total", total);
+        stats.putInt("starred", starred);
+        stats.putInt("withPhoneNumber", withPhoneNumber);
+        stats.putMap("byMimeType", mimeTypes);
+        stats.putArray("byAccount", accounts);
+        return stats;
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        if (key == null) {
+            return;
+        }
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    public WritableArray getContacts() {
+        List<Contact> cached = cache != null ? cache.getAll() : null;
+        if (cached != null) {
+            return toArray(cached);
+        }
+
+        long generation = cache != null ? cache.getGeneration() : 0;
+        List<Contact> all = loadContacts();
+        if (isCacheable()) {
+            cache.putAll(generation, all);
+        }
+
+        return toArray(all);
+    }
+
+    /**
+     * Reads the contacts in contact id order until the deadline passes, then returns the ones read completely and
+     * a continuation to pass to the next call. Every call returns at least one contact while there are any left.
+     *
+     * @param continuation returned by the previous call, <code>null</code> to start with the profile contact
+     * @return map holding <code>contacts</code> and <code>continuation</code>, <code>null</code> once every contact
+     * was returned
+     */
+    public WritableMap getContactsPartial(String continuation) {
+        List<Contact> contacts = new ArrayList<>();
+        if (continuation == null) {
+            contacts.addAll(getProfileContact().values());
+        }
+
+        Map<String, Contact> read;
+        boolean complete;
+        {
+            Cursor cursor = query(
+                    ContactsContract.Data.CONTENT_URI,
+                    fields.getProjection(),
+                    fields.withMimeTypeSelection(ContactsContract.Data.CONTACT_ID + " > ?"),
+                    fields.withMimeTypeArgs(continuation == null ? "0" : continuation),
+                    ContactsContract.Data.CONTACT_ID + " ASC");
+
+            try {
+                read = new LinkedHashMap<>();
+                complete = loadContactsFrom(cursor, read, true);
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+        contacts.addAll(read.values());
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("contacts", toArray(contacts));
+        if (!complete) {
+            String lastContactId = null;
+            for (String contactId : read.keySet()) {
+                lastContactId = contactId;
+            }
+            result.putString("continuation", lastContactId);
+        } else {
+            result.putNull("continuation");
+        }
+        return result;
+    }
+
+    /**
+     * Reads every contact, the profile contact first.
+     */
+    private List<Contact> loadContacts() {
+        Map<String, Contact> justMe = getProfileContact();
+
+        Map<String, Contact> everyoneElse;
+        {
+            Cursor cursor = query(
+                    ContactsContract.Data.CONTENT_URI,
+                    fields.getProjection(),
+                    fields.getMimeTypeSelection(),
+                    fields.getMimeTypeSelectionArgs(),
+                    null);
+
+            try {
+                everyoneElse = loadContactsFrom(cursor);
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        List<Contact> all = new ArrayList<>(justMe.values());
+        all.addAll(everyoneElse.values());
+        return all;
+    }
+
+    /**
+     * Reads every contact, except the profile contact, sorted by the contacts provider.
+     * The order is taken from the Contacts table, ties broken by contact id, and every contact of it is
+     * returned, so the section offsets reported by the provider line up with the list.
+     *
+     * @param sortBy one of the <code>SORT_</code> constants; display name sorts use the locale aware sort keys
+     * @return map holding the sorted <code>contacts</code> and <code>sections</code>, the address book index as
+     * <code>{ title, offset, count }</code> entries; empty unless sorted by display name
+     */
+    public WritableMap getContactsSorted(String sortBy) {
+        boolean alternative = SORT_DISPLAY_NAME_ALTERNATIVE.equals(sortBy);
+        boolean withSections = SORT_DISPLAY_NAME.equals(sortBy) || alternative;
+        String displayNameColumn = alternative
+                ? ContactsContract.Contacts.DISPLAY_NAME_ALTERNATIVE
+                : ContactsContract.Contacts.DISPLAY_NAME_PRIMARY;
+
+        String sortOrder;
+        if (SORT_LAST_UPDATED.equals(sortBy)) {
+            sortOrder = ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP + " DESC";
+        } else if (alternative) {
+            sortOrder = ContactsContract.Contacts.SORT_KEY_ALTERNATIVE;
+        } else {
+            sortOrder = ContactsContract.Contacts.SORT_KEY_PRIMARY;
+        }
+        sortOrder += ", " + ContactsContract.Contacts._ID + " ASC";
+
+        Uri uri = ContactsContract.Contacts.CONTENT_URI;
+        if (withSections) {
+            uri = uri.buildUpon()
+                    .appendQueryParameter(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX, "true")
+                    .build();
+        }
+
+        List<String> contactIds = new ArrayList<>();
+        Map<String, String> displayNames = new HashMap<>();
+        WritableArray sections = Arguments.createArray();
+        {
+            Cursor cursor = query(
+                    uri,
+                    new String[] { ContactsContract.Contacts._ID, displayNameColumn },
+                    null,
+                    null,
+                    sortOrder);
+
+            try {
+                if (withSections && cursor != null) {
+                    sections = getSections(cursor.getExtras());
+                }
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    String contactId = cursor.getString(0);
+                    contactIds.add(contactId);
+                    displayNames.put(contactId, cursor.getString(1));
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        if (SORT_FAMILY_NAME.equals(sortBy)) {
+            contactIds = sortByFamilyName(contactIds);
+        }
+
+        Map<String, Contact> everyone;
+        {
+            Cursor cursor = query(
+                    ContactsContract.Data.CONTENT_URI,
+                    fields.getProjection(),
+                    fields.getMimeTypeSelection(),
+                    fields.getMimeTypeSelectionArgs(),
+                    null);
+
+            try {
+                everyone = loadContactsFrom(cursor);
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        WritableArray contacts = Arguments.createArray();
+        for (String contactId : contactIds) {
+            Contact contact = everyone.get(contactId);
+            if (contact == null) {
+                // none of its Data rows were selected, keep it so section offsets stay valid
+                contact = new Contact(contactId);
+                contact.displayName = displayNames.get(contactId);
+            }
+            contacts.pushMap(toMap(contact));
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("contacts", contacts);
+        result.putArray("sections", sections);
+        return result;
+    }
+
+    private WritableArray getSections(Bundle extras) {
+        WritableArray sections = Arguments.createArray();
+        if (extras == null) {
+            return sections;
+        }
+        String[] titles = extras.getStringArray(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX_TITLES);
+        int[] counts = extras.getIntArray(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX_COUNTS);
+        if (titles == null || counts == null) {
+            return sections;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < titles.length && i < counts.length; i++) {
+            WritableMap section = Arguments.createMap();
+            section.putString("title", titles[i]);
+            section.putInt("offset", offset);
+            section.putInt("count", counts[i]);
+            sections.pushMap(section);
+            offset += counts[i];
+        }
+        return sections;
+    }
+
+    /*
+     * orders contacts by the family name of their structured name, contacts without one keep their order at the end
+     */
+    private List<String> sortByFamilyName(List<String> contactIds) {
+        Set<String> sorted = new LinkedHashSet<>();
+        Cursor cursor = query(
+                ContactsContract.Data.CONTENT_URI,
+                new String[] { ContactsContract.Data.CONTACT_ID },
+                ContactsContract.Data.MIMETYPE + " = ? AND " + StructuredName.FAMILY_NAME + " IS NOT NULL",
+                new String[] { StructuredName.CONTENT_ITEM_TYPE },
+                StructuredName.FAMILY_NAME + " COLLATE LOCALIZED ASC, " + ContactsContract.Data.CONTACT_ID + " ASC");
+
+        try {
+            while (cursor != null && cursorMoveToNext(cursor)) {
+                sorted.add(cursor.getString(0));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        // drop ids the Contacts query did not return, e.g. contacts created in between
+        Set<String> known = new HashSet<>(contactIds);
+        sorted.retainAll(known);
+        sorted.addAll(contactIds);
+        return new ArrayList<>(sorted);
+    }
+
+    /**
+     * Retrieves one page of contacts ordered by contact id.
+     * Only the Data rows of the contacts on the requested page are read, so the cost of a
+     * call does not grow with the size of the address book.
+     *
+     * @param afterContactId cursor returned by the previous page, <code>null</code> for the first page
+     * @param limit maximum number of contacts on the page
+     * @return map holding <code>contacts</code> and <code>nextCursor</code> (<code>null</code> on the last page)
+     */
+    public WritableMap getContactsPaged(String afterContactId, int limit) {
+        List<String> contactIds = new ArrayList<>();
+        {
+            // ask for one extra id so we know whether another page follows
+            Uri uri = ContactsContract.Contacts.CONTENT_URI.buildUpon()
+                    .appendQueryParameter(ContactsContract.LIMIT_PARAM_KEY, String.valueOf(limit + 1))
+                    .build();
+            Cursor cursor = query(
+                    uri,
+                    new String[] { ContactsContract.Contacts._ID },
+                    ContactsContract.Contacts._ID + " > ?",
+                    new String[] { afterContactId == null ? "0" : afterContactId },
+                    ContactsContract.Contacts._ID + " ASC");
+
+            try {
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    contactIds.add(cursor.getString(0));
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        boolean hasMore = contactIds.size() > limit;
+        if (hasMore) {
+            contactIds = contactIds.subList(0, limit);
+        }
+
+        Map<String, Contact> page = new LinkedHashMap<>();
+        if (!contactIds.isEmpty()) {
+            Cursor cursor = query(
+                    ContactsContract.Data.CONTENT_URI,
+                    fields.getProjection(),
+                    fields.withMimeTypeSelection(ContactsContract.Data.CONTACT_ID + " >= ? AND "
+                            + ContactsContract.Data.CONTACT_ID + " <= ?"),
+                    fields.withMimeTypeArgs(contactIds.get(0), contactIds.get(contactIds.size() - 1)),
+                    ContactsContract.Data.CONTACT_ID + " ASC");
+
+            try {
+                page = loadContactsFrom(cursor);
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        WritableArray contacts = Arguments.createArray();
+        if (afterContactId == null) {
+            for (Contact contact : getProfileContact().values()) {
+                contacts.pushMap(toMap(contact));
+            }
+        }
+        for (Contact contact : page.values()) {
+            contacts.pushMap(toMap(contact));
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("contacts", contacts);
+        if (hasMore) {
+            result.putString("nextCursor", contactIds.get(contactIds.size() - 1));
+        } else {
+            result.putNull("nextCursor");
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves what changed in the address book after <code>since</code>, so callers can keep a local copy
+     * in sync without reading every contact again.
+     *
+     * @param since high-water mark returned by the previous call, 0 for everything
+     * @return map holding the <code>updated</code> contacts, the <code>deletedIds</code> of deleted contacts and
+     * the new high-water mark as <code>timestamp</code>
+     */
+    public WritableMap getChangesSince(long since) {
+        Changes changes = loadChangesSince(since);
+
+        WritableArray deletedIds = Arguments.createArray();
+        for (String contactId : changes.deletedIds) {
+            deletedIds.pushString(contactId);
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("updated", toArray(changes.updated));
+        result.putArray("deletedIds", deletedIds);
+        result.putDouble("timestamp", changes.timestamp);
+        return result;
+    }
+
+    /**
+     * Serves the address book from <code>snapshot</code>. Without a usable snapshot the contacts are read
+     * from the provider and the snapshot is written for the next time.
+     */
+    public WritableArray getContactsFromSnapshot(ContactsSnapshot snapshot) throws IOException {
+        if (!snapshot.load()) {
+            // changes made while reading are newer than this and get picked up by the next revalidation
+            long timestamp = System.currentTimeMillis();
+            snapshot.replace(timestamp, loadContacts());
+            snapshot.save();
+        }
+        return toArray(snapshot.getContacts());
+    }
+
+    /**
+     * Brings a loaded <code>snapshot</code> up to date with the provider and saves it.
+     *
+     * @return map holding the <code>updated</code> contacts and the <code>deletedIds</code>, both empty when the
+     * snapshot was current
+     */
+    public WritableMap revalidateSnapshot(ContactsSnapshot snapshot) throws IOException {
+        Collection<Contact> updated;
+        List<String> deletedIds;
+        if (System.currentTimeMillis() - snapshot.getTimestamp() > ContactsContract.DeletedContacts.DAYS_KEPT_MILLISECONDS) {
+            // deletions this old are gone from DeletedContacts, start over
+            long timestamp = System.currentTimeMillis();
+            List<String> previousIds = snapshot.getContactIds();
+            snapshot.replace(timestamp, loadContacts());
+            updated = snapshot.getContacts();
+            Set<String> currentIds = new HashSet<>(snapshot.getContactIds());
+            deletedIds = new ArrayList<>();
+            for (String contactId : previousIds) {
+                if (!currentIds.contains(contactId)) {
+                    deletedIds.add(contactId);
+                }
+            }
+            snapshot.save();
+        } else {
+            Changes changes = loadChangesSince(snapshot.getTimestamp());
+            updated = changes.updated;
+            deletedIds = changes.deletedIds;
+            if (!updated.isEmpty() || !deletedIds.isEmpty()) {
+                snapshot.apply(changes.timestamp, updated, deletedIds);
+                snapshot.save();
+            }
+        }
+
+        WritableArray deleted = Arguments.createArray();
+        for (String contactId : deletedIds) {
+            deleted.pushString(contactId);
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("updated", toArray(updated));
+        result.putArray("deletedIds", deleted);
+        return result;
+    }
+
+    /**
+     * Contacts updated and deleted after a timestamp, with the newest timestamp seen.
+     */
+    private static class Changes {
+        final Collection<Contact> updated;
+        final List<String> deletedIds;
+        final long timestamp;
+
+        Changes(Collection<Contact> updated, List<String> deletedIds, long timestamp) {
+            this.updated = updated;
+            this.deletedIds = deletedIds;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private Changes loadChangesSince(long since) {
+        long timestamp = since;
+
+        List<String> updatedIds = new ArrayList<>();
+        {
+            Cursor cursor = query(
+                    ContactsContract.Contacts.CONTENT_URI,
+                    new String[] { ContactsContract.Contacts._ID, ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP },
+                    ContactsContract.Contacts.CONTACT_LAST_UPDATED_TIMESTAMP + " > ?",
+                    new String[] { String.valueOf(since) },
+                    ContactsContract.Contacts._ID + " ASC");
+
+            try {
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    updatedIds.add(cursor.getString(0));
+                    timestamp = Math.max(timestamp, cursor.getLong(1));
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        List<String> deletedIds = new ArrayList<>();
+        {
+            Cursor cursor = query(
+                    ContactsContract.DeletedContacts.CONTENT_URI,
+                    new String[] {
+                            ContactsContract.DeletedContacts.CONTACT_ID,
+                            ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP
+                    },
+                    ContactsContract.DeletedContacts.CONTACT_DELETED_TIMESTAMP + " > ?",
+                    new String[] { String.valueOf(since) },
+                    null);
+
+            try {
+                while (cursor != null && cursorMoveToNext(cursor)) {
+                    deletedIds.add(cursor.getString(0));
+                    timestamp = Math.max(timestamp, cursor.getLong(1));
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+
+        return new Changes(loadContactsByIds(updatedIds).values(), deletedIds, timestamp);
     }
 
-    public WritableMap getContactById(String contactId) {
+    /**
+     * Reads the given contacts, querying the Data table in chunks of {@link #MAX_IDS_PER_QUERY} ids
+     * to stay below the SQLite bound parameter limit.
+     */
+    @NonNull
+    private Map<String, Contact> loadContactsByIds(List<String> contactIds) {
+        Map<String, Contact> contacts = new LinkedHashMap<>();
+        for (int start = 0; start < contactIds.size(); start += MAX_IDS_PER_QUERY) {
+            List<String> chunk = contactIds.subList(start, Math.min(start + MAX_IDS_PER_QUERY, contactIds.size()));
+
+            StringBuilder selection = new StringBuilder(ContactsContract.Data.CONTACT_ID).append(" IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                selection.append(i == 0 ? "?" : ",?");
+            }
+            selection.append(")");
 
-        Map<String, Contact> matchingContacts;
-        {
-            Cursor cursor = contentResolver.query(
+            Cursor cursor = query(
                     ContactsContract.Data.CONTENT_URI,
-                    FULL_PROJECTION.toArray(new String[FULL_PROJECTION.size()]),
-                    ContactsContract.RawContacts.CONTACT_ID + " = ?",
-                    new String[] { contactId },
-                    null);
+                    fields.getProjection(),
+                    fields.withMimeTypeSelection(selection.toString()),
+                    fields.withMimeTypeArgs(chunk.toArray(new String[chunk.size()])),
+                    ContactsContract.Data.CONTACT_ID + " ASC");
 
             try {
-                matchingContacts = loadContactsFrom(cursor);
+                contacts.putAll(loadContactsFrom(cursor));
             } finally {
                 if (cursor != null) {
                     cursor.close();
                 }
             }
         }
+        return contacts;
+    }
 
-        if (matchingContacts.values().size() > 0) {
-            return matchingContacts.values().iterator().next().toMap();
+    /**
+     * Reads every contact like {@link #getContacts()} but hands them to <code>listener</code> in batches of
+     * <code>batchSize</code> as soon as they are complete, instead of building one array for the whole
+     * address book. The Data cursor is ordered by contact id, so a contact is complete once a row of the
+     * next contact shows up.
+     *
+     * @return number of contacts emitted
+     */
+    public int streamContacts(int batchSize, ContactsBatchListener listener) {
+        int count = 0;
+        Map<String, Contact> batch = getProfileContact();
+
+        Cursor cursor = query(
+                ContactsContract.Data.CONTENT_URI,
+                fields.getProjection(),
+                fields.getMimeTypeSelection(),
+                fields.getMimeTypeSelectionArgs(),
+                ContactsContract.Data.CONTACT_ID + " ASC");
+
+        try {
+            RowSchema schema = cursor != null ? new RowSchema(cursor) : null;
+            while (cursor != null && cursorMoveToNext(cursor)) {
+                String contactId = cursor.getString(schema.contactId);
+                if (batch.size() >= batchSize && !batch.containsKey(contactId)) {
+                    count += batch.size();
+                    listener.onBatch(toArray(batch.values()));
+                    batch = new LinkedHashMap<>();
+                }
+                loadContactRow(cursor, schema, batch);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
         }
 
-        return null;
+        if (!batch.isEmpty()) {
+            count += batch.size();
+            listener.onBatch(toArray(batch.values()));
+        }
+        return count;
     }
 
-    public Integer getContactsCount() {
-        Cursor cursor = contentResolver.query(ContactsContract.Contacts.CONTENT_URI, null, null, null, null);
-        int count = cursor.getCount();
+    /**
+     * Writes contacts as vCards while reading them. Every contact is written as soon as its last Data row was
+     * read, so at most one chunk of contacts is held in memory. The profile contact is not exported.
+     *
+     * @param contactIds contacts to export, or <code>null</code> for all of them
+     * @return number of contacts written
+     */
+    public int exportVCard(ContactsVCard.Writer out, List<String> contactIds) throws IOException {
+        if (contactIds != null) {
+            int count = 0;
+            for (int start = 0; start < contactIds.size(); start += MAX_IDS_PER_QUERY) {
+                List<String> chunk = contactIds.subList(start, Math.min(start + MAX_IDS_PER_QUERY, contactIds.size()));
+                for (Contact contact : loadContactsByIds(chunk).values()) {
+                    contact.writeVCard(out);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        int count = 0;
+        Cursor cursor = query(
+                ContactsContract.Data.CONTENT_URI,
+                fields.getProjection(),
+                fields.getMimeTypeSelection(),
+                fields.getMimeTypeSelectionArgs(),
+                ContactsContract.Data.CONTACT_ID + " ASC");
 
+        try {
+            RowSchema schema = cursor != null ? new RowSchema(cursor) : null;
+            Map<String, Contact> current = new HashMap<>();
+            while (cursor != null && cursorMoveToNext(cursor)) {
+                String contactId = cursor.getString(schema.contactId);
+                if (!current.isEmpty() && !current.containsKey(contactId)) {
+                    current.values().iterator().next().writeVCard(out);
+                    count++;
+                    current.clear();
+                }
+                loadContactRow(cursor, schema, current);
+            }
+            if (!current.isEmpty()) {
+                current.values().iterator().next().writeVCard(out);
+                count++;
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
         return count;
     }
 
-    public WritableArray getContacts() {
-        Map<String, Contact> justMe;
-        {
-            Cursor cursor = contentResolver.query(
-                    Uri.withAppendedPath(ContactsContract.Profile.CONTENT_URI,
-                            ContactsContract.Contacts.Data.CONTENT_DIRECTORY),
-                    JUST_ME_PROJECTION.toArray(new String[JUST_ME_PROJECTION.size()]),
-                    null,
-                    null,
-                    null);
+    /*
+     * only complete contacts go into the cache, trimmed ones would be missing fields for later reads
+     */
+    private boolean isCacheable() {
+        return cache != null && fields == ContactFields.ALL;
+    }
 
-            try {
-                justMe = loadContactsFrom(cursor);
-            } finally {
-                if (cursor != null) {
-                    cursor.close();
-                }
+    private WritableArray toArray(Collection<Contact> contacts) {
+        ContactsMetrics.Call call = ContactsMetrics.current();
+        long start = call != null ? System.nanoTime() : 0;
+        long bytes = 0;
+        WritableArray array = Arguments.createArray();
+        for (Contact contact : contacts) {
+            array.pushMap(contact.toMap(fields));
+            if (call != null) {
+                bytes += contact.estimateSize();
             }
         }
+        if (call != null) {
+            call.serialized(System.nanoTime() - start, contacts.size(), bytes);
+        }
+        return array;
+    }
 
-        Map<String, Contact> everyoneElse;
-        {
-            Cursor cursor = contentResolver.query(
-                    ContactsContract.Data.CONTENT_URI,
-                    FULL_PROJECTION.toArray(new String[FULL_PROJECTION.size()]),
-                    ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=? OR "
-                            + ContactsContract.Data.MIMETYPE + "=?",
-                    new String[] {
-                            Email.CONTENT_ITEM_TYPE,
-                            Phone.CONTENT_ITEM_TYPE,
-                            StructuredName.CONTENT_ITEM_TYPE,
-                            Organization.CONTENT_ITEM_TYPE,
-                            StructuredPostal.CONTENT_ITEM_TYPE,
-                            Note.CONTENT_ITEM_TYPE,
-                            Website.CONTENT_ITEM_TYPE,
-                            Im.CONTENT_ITEM_TYPE,
-                            Event.CONTENT_ITEM_TYPE,
-                    },
-                    null);
+    /*
+     * converts a single contact, counted in the metrics like toArray
+     */
+    private WritableMap toMap(Contact contact) {
+        ContactsMetrics.Call call = ContactsMetrics.current();
+        if (call == null) {
+            return contact.toMap(fields);
+        }
+        long start = System.nanoTime();
+        WritableMap map = contact.toMap(fields);
+        call.serialized(System.nanoTime() - start, 1, contact.estimateSize());
+        return map;
+    }
 
-            try {
-                everyoneElse = loadContactsFrom(cursor);
-            } finally {
-                if (cursor != null) {
-                    cursor.close();
-                }
+    private Map<String, Contact> getProfileContact() {
+        Cursor cursor = query(
+                Uri.withAppendedPath(ContactsContract.Profile.CONTENT_URI,
+                        ContactsContract.Contacts.Data.CONTENT_DIRECTORY),
+                fields.getProjection(),
+                fields.getMimeTypeSelection(),
+                fields.getMimeTypeSelectionArgs(),
+                null);
+
+        try {
+            // one contact, which a partial read never leaves out
+            Map<String, Contact> map = new LinkedHashMap<>();
+            loadContactsFrom(cursor, map, true);
+            return map;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
             }
         }
+    }
 
-        WritableArray contacts = Arguments.createArray();
-        for (Contact contact : justMe.values()) {
-            contacts.pushMap(contact.toMap());
+    private Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        ContactsMetrics.Call call = ContactsMetrics.current();
+        if (call == null) {
+            return contentResolver.query(uri, projection, selection, selectionArgs, sortOrder, cancellationSignal);
         }
-        for (Contact contact : everyoneElse.values()) {
-            contacts.pushMap(contact.toMap());
+        long start = System.nanoTime();
+        try {
+            return contentResolver.query(uri, projection, selection, selectionArgs, sortOrder, cancellationSignal);
+        } finally {
+            call.queried(System.nanoTime() - start);
         }
-
-        return contacts;
     }
 
     private Boolean cursorMoveToNext(Cursor cursor) {
         try {
             return cursor.moveToNext();
+        } catch (OperationCanceledException error) {
+            throw error;
         } catch (RuntimeException error) {
             return false;
         }
@@ -319,257 +1204,431 @@ public class ContactsProvider {
     private Map<String, Contact> loadContactsFrom(Cursor cursor) {
 
         Map<String, Contact> map = new LinkedHashMap<>();
+        loadContactsFrom(cursor, map, false);
+        return map;
+    }
 
-        while (cursor != null && cursorMoveToNext(cursor)) {
+    /**
+     * @param partial on the deadline, stop reading instead of throwing; the cursor must be ordered by contact id
+     * @return <code>false</code> if reading stopped at the deadline. The contact being read then is left out if
+     * some of its rows are unread; at least one contact is always read.
+     */
+    private boolean loadContactsFrom(Cursor cursor, Map<String, Contact> map, boolean partial) {
+        if (cursor == null) {
+            return true;
+        }
 
-            int columnIndexContactId = cursor.getColumnIndex(ContactsContract.Data.CONTACT_ID);
-            int columnIndexId = cursor.getColumnIndex(ContactsContract.Data._ID);
-            int columnIndexRawContactId = cursor.getColumnIndex(ContactsContract.Data.RAW_CONTACT_ID);
-            String contactId;
-            String id;
-            String rawContactId;
-            if (columnIndexContactId != -1) {
-                contactId = cursor.getString(columnIndexContactId);
-            } else {
-                // todo - double check this, it may not be necessary any more
-                contactId = String.valueOf(ID_FOR_PROFILE_CONTACT);// no contact id for 'ME' user
+        RowSchema schema = new RowSchema(cursor);
+        boolean interruptible = cancellationSignal != null || deadline > 0;
+        ContactsMetrics.Call call = ContactsMetrics.current();
+        long start = call != null ? System.nanoTime() : 0;
+        int rows = 0;
+        try {
+            while (cursorMoveToNext(cursor)) {
+                if (++rows % INTERRUPT_CHECK_INTERVAL == 0 && interruptible) {
+                    if (cancellationSignal != null) {
+                        cancellationSignal.throwIfCanceled();
+                    }
+                    if (deadline > 0 && SystemClock.uptimeMillis() >= deadline) {
+                        if (!partial) {
+                            throw new DeadlineExceededException();
+                        }
+                        String last = null;
+                        for (String contactId : map.keySet()) {
+                            last = contactId;
+                        }
+                        // the row under the cursor is unread, the last contact is complete unless it owns that row
+                        if (last != null && !last.equals(contactIdOf(cursor, schema))) {
+                            return false;
+                        }
+                        if (map.size() > 1) {
+                            map.remove(last);
+                            return false;
+                        }
+                    }
+                }
+                loadContactRow(cursor, schema, map);
             }
-
-            if (columnIndexId != -1) {
-                id = cursor.getString(columnIndexId);
-            } else {
-                // todo - double check this, it may not be necessary any more
-                id = String.valueOf(ID_FOR_PROFILE_CONTACT);// no contact id for 'ME' user
+            return true;
+        } finally {
+            if (call != null) {
+                call.iterated(System.nanoTime() - start, rows);
             }
+        }
+    }
 
-            if (columnIndexRawContactId != -1) {
-                rawContactId = cursor.getString(columnIndexRawContactId);
-            } else {
-                // todo - double check this, it may not be necessary any more
-                rawContactId = String.valueOf(ID_FOR_PROFILE_CONTACT);// no contact id for 'ME' user
-            }
+    private static String contactIdOf(Cursor cursor, RowSchema schema) {
+        if (schema.contactId != -1) {
+            return cursor.getString(schema.contactId);
+        }
+        // todo - double check this, it may not be necessary any more
+        return String.valueOf(ID_FOR_PROFILE_CONTACT);// no contact id for 'ME' user
+    }
+
+    /**
+     * Reads the current row of a Data cursor into its contact, creating the contact on its first row.
+     */
+    private void loadContactRow(Cursor cursor, RowSchema schema, Map<String, Contact> map) {
+        String contactId = contactIdOf(cursor, schema);
+        String id;
+        String rawContactId;
+
+        if (schema.id != -1) {
+            id = cursor.getString(schema.id);
+        } else {
+            // todo - double check this, it may not be necessary any more
+            id = String.valueOf(ID_FOR_PROFILE_CONTACT);// no contact id for 'ME' user
+        }
+
+        if (schema.rawContactId != -1) {
+            rawContactId = cursor.getString(schema.rawContactId);
+        } else {
+            // todo - double check this, it may not be necessary any more
+            rawContactId = String.valueOf(ID_FOR_PROFILE_CONTACT);// no contact id for 'ME' user
+        }
+
+        Contact contact = map.get(contactId);
+        if (contact == null) {
+            contact = new Contact(contactId);
+            map.put(contactId, contact);
+        }
+
+        String mimeType = cursor.getString(schema.mimeType);
+        String name = cursor.getString(schema.displayName);
+        contact.rawContactId = rawContactId;
+        if (!TextUtils.isEmpty(name) && TextUtils.isEmpty(contact.displayName)) {
+            contact.displayName = name;
+        }
+        contact.isStarred = cursor.getInt(schema.starred) == 1;
 
-            if (!map.containsKey(contactId)) {
-                map.put(contactId, new Contact(contactId));
+        if (TextUtils.isEmpty(contact.photoUri)) {
+            String rawPhotoURI = cursor.getString(schema.photoUri);
+            if (!TextUtils.isEmpty(rawPhotoURI)) {
+                contact.photoUri = rawPhotoURI;
+                contact.hasPhoto = true;
             }
+        }
+
+        RowDecoder decoder = mimeType != null ? ROW_DECODERS.get(mimeType) : null;
+        if (decoder != null) {
+            decoder.decode(cursor, schema, contact, id);
+        }
+    }
+
+    /**
+     * Column indices of a Data cursor, resolved once per cursor instead of once per row and field.
+     * Columns missing from the projection resolve to -1.
+     */
+    private static class RowSchema {
+        final int contactId;
+        final int id;
+        final int rawContactId;
+        final int mimeType;
+        final int displayName;
+        final int starred;
+        final int photoUri;
+
+        final int givenName;
+        final int middleName;
+        final int familyName;
+        final int prefix;
+        final int suffix;
+
+        final int phoneNumber;
+        final int phoneType;
+        final int phoneLabel;
+
+        final int emailAddress;
+        final int emailType;
+        final int emailLabel;
+
+        final int websiteUrl;
+        final int websiteType;
+        final int websiteLabel;
+
+        final int imData;
+        final int imProtocol;
+        final int imCustomProtocol;
+
+        final int company;
+        final int title;
+        final int department;
+
+        final int postalFormattedAddress;
+        final int postalType;
+        final int postalLabel;
+        final int postalStreet;
+        final int postalPobox;
+        final int postalNeighborhood;
+        final int postalCity;
+        final int postalRegion;
+        final int postalPostcode;
+        final int postalCountry;
+
+        final int eventType;
+        final int eventStartDate;
+
+        final int note;
+
+        RowSchema(Cursor cursor) {
+            contactId = cursor.getColumnIndex(ContactsContract.Data.CONTACT_ID);
+            id = cursor.getColumnIndex(ContactsContract.Data._ID);
+            rawContactId = cursor.getColumnIndex(ContactsContract.Data.RAW_CONTACT_ID);
+            mimeType = cursor.getColumnIndex(ContactsContract.Data.MIMETYPE);
+            displayName = cursor.getColumnIndex(ContactsContract.Contacts.DISPLAY_NAME);
+            starred = cursor.getColumnIndex(ContactsContract.Data.STARRED);
+            photoUri = cursor.getColumnIndex(Contactables.PHOTO_URI);
+
+            givenName = cursor.getColumnIndex(StructuredName.GIVEN_NAME);
+            middleName = cursor.getColumnIndex(StructuredName.MIDDLE_NAME);
+            familyName = cursor.getColumnIndex(StructuredName.FAMILY_NAME);
+            prefix = cursor.getColumnIndex(StructuredName.PREFIX);
+            suffix = cursor.getColumnIndex(StructuredName.SUFFIX);
+
+            phoneNumber = cursor.getColumnIndex(Phone.NUMBER);
+            phoneType = cursor.getColumnIndex(Phone.TYPE);
+            phoneLabel = cursor.getColumnIndex(Phone.LABEL);
+
+            emailAddress = cursor.getColumnIndex(Email.ADDRESS);
+            emailType = cursor.getColumnIndex(Email.TYPE);
+            emailLabel = cursor.getColumnIndex(Email.LABEL);
+
+            websiteUrl = cursor.getColumnIndex(Website.URL);
+            websiteType = cursor.getColumnIndex(Website.TYPE);
+            websiteLabel = cursor.getColumnIndex(Website.LABEL);
+
+            imData = cursor.getColumnIndex(Im.DATA);
+            imProtocol = cursor.getColumnIndex(Im.PROTOCOL);
+            imCustomProtocol = cursor.getColumnIndex(Im.CUSTOM_PROTOCOL);
+
+            company = cursor.getColumnIndex(Organization.COMPANY);
+            title = cursor.getColumnIndex(Organization.TITLE);
+            department = cursor.getColumnIndex(Organization.DEPARTMENT);
+
+            postalFormattedAddress = cursor.getColumnIndex(StructuredPostal.FORMATTED_ADDRESS);
+            postalType = cursor.getColumnIndex(StructuredPostal.TYPE);
+            postalLabel = cursor.getColumnIndex(StructuredPostal.LABEL);
+            postalStreet = cursor.getColumnIndex(StructuredPostal.STREET);
+            postalPobox = cursor.getColumnIndex(StructuredPostal.POBOX);
+            postalNeighborhood = cursor.getColumnIndex(StructuredPostal.NEIGHBORHOOD);
+            postalCity = cursor.getColumnIndex(StructuredPostal.CITY);
+            postalRegion = cursor.getColumnIndex(StructuredPostal.REGION);
+            postalPostcode = cursor.getColumnIndex(StructuredPostal.POSTCODE);
+            postalCountry = cursor.getColumnIndex(StructuredPostal.COUNTRY);
+
+            eventType = cursor.getColumnIndex(Event.TYPE);
+            eventStartDate = cursor.getColumnIndex(Event.START_DATE);
+
+            note = cursor.getColumnIndex(Note.NOTE);
+        }
+    }
+
+    private interface RowDecoder {
+        void decode(Cursor cursor, RowSchema schema, Contact contact, String id);
+    }
+
+    /*
+     * MIME type -> decoder for the type specific columns of a Data row
+     */
+    private static final Map<String, RowDecoder> ROW_DECODERS = new HashMap<>();
+
+    static {
+        ROW_DECODERS.put(StructuredName.CONTENT_ITEM_TYPE, ContactsProvider::decodeStructuredName);
+        ROW_DECODERS.put(Phone.CONTENT_ITEM_TYPE, ContactsProvider::decodePhone);
+        ROW_DECODERS.put(Email.CONTENT_ITEM_TYPE, ContactsProvider::decodeEmail);
+        ROW_DECODERS.put(Website.CONTENT_ITEM_TYPE, ContactsProvider::decodeWebsite);
+        ROW_DECODERS.put(Im.CONTENT_ITEM_TYPE, ContactsProvider::decodeIm);
+        ROW_DECODERS.put(Organization.CONTENT_ITEM_TYPE, ContactsProvider::decodeOrganization);
+        ROW_DECODERS.put(StructuredPostal.CONTENT_ITEM_TYPE, ContactsProvider::decodePostal);
+        ROW_DECODERS.put(Event.CONTENT_ITEM_TYPE, ContactsProvider::decodeEvent);
+        ROW_DECODERS.put(Note.CONTENT_ITEM_TYPE, ContactsProvider::decodeNote);
+    }
 
-            Contact contact = map.get(contactId);
-            String mimeType = cursor.getString(cursor.getColumnIndex(ContactsContract.Data.MIMETYPE));
-            String name = cursor.getString(cursor.getColumnIndex(ContactsContract.Contacts.DISPLAY_NAME));
-            int starred = cursor.getInt(cursor.getColumnIndex(ContactsContract.Data.STARRED));
-            Boolean isStarred = starred == 1;
-            contact.rawContactId = rawContactId;
-            if (!TextUtils.isEmpty(name) && TextUtils.isEmpty(contact.displayName)) {
-                contact.displayName = name;
+    private static void decodeStructuredName(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        contact.givenName = cursor.getString(schema.givenName);
+        String middleName = cursor.getString(schema.middleName);
+        contact.middleName = middleName != null ? middleName : "";
+        String familyName = cursor.getString(schema.familyName);
+        contact.familyName = familyName != null ? familyName : "";
+        contact.prefix = cursor.getString(schema.prefix);
+        contact.suffix = cursor.getString(schema.suffix);
+    }
+
+    private static void decodePhone(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        String phoneNumber = cursor.getString(schema.phoneNumber);
+        int phoneType = cursor.getInt(schema.phoneType);
+
+        if (!TextUtils.isEmpty(phoneNumber)) {
+            final String label;
+            if (schema.phoneLabel >= 0) {
+                String typeLabel = cursor.getString(schema.phoneLabel);
+                label = ContactsContract.CommonDataKinds.Phone
+                        .getTypeLabel(Resources.getSystem(), phoneType, typeLabel).toString();
+            } else {
+                label = "other";
             }
-            contact.isStarred = isStarred;
+            Contact.Item item = new Contact.Item(label, phoneNumber, id);
+            item.type = phoneType;
+            contact.phones.add(item);
+        }
+    }
 
-            if (TextUtils.isEmpty(contact.photoUri)) {
-                String rawPhotoURI = cursor.getString(cursor.getColumnIndex(Contactables.PHOTO_URI));
-                if (!TextUtils.isEmpty(rawPhotoURI)) {
-                    contact.photoUri = rawPhotoURI;
-                    contact.hasPhoto = true;
-                }
+    private static void decodeEmail(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        String email = cursor.getString(schema.emailAddress);
+        int emailType = cursor.getInt(schema.emailType);
+        if (!TextUtils.isEmpty(email)) {
+            String label;
+            switch (emailType) {
+                case Email.TYPE_HOME:
+                    label = "home";
+                    break;
+                case Email.TYPE_WORK:
+                    label = "work";
+                    break;
+                case Email.TYPE_MOBILE:
+                    label = "mobile";
+                    break;
+                case Email.TYPE_OTHER:
+                    label = "other";
+                    break;
+                case Email.TYPE_CUSTOM:
+                    String customLabel = cursor.getString(schema.emailLabel);
+                    label = customLabel != null ? customLabel.toLowerCase() : "";
+                    break;
+                default:
+                    label = "other";
             }
+            contact.emails.add(new Contact.Item(label, email, id));
+        }
+    }
 
-            switch (mimeType) {
-                case StructuredName.CONTENT_ITEM_TYPE:
-                    contact.givenName = cursor.getString(cursor.getColumnIndex(StructuredName.GIVEN_NAME));
-                    if (cursor.getString(cursor.getColumnIndex(StructuredName.MIDDLE_NAME)) != null) {
-                        contact.middleName = cursor.getString(cursor.getColumnIndex(StructuredName.MIDDLE_NAME));
-                    } else {
-                        contact.middleName = "";
-                    }
-                    if (cursor.getString(cursor.getColumnIndex(StructuredName.FAMILY_NAME)) != null) {
-                        contact.familyName = cursor.getString(cursor.getColumnIndex(StructuredName.FAMILY_NAME));
-                    } else {
-                        contact.familyName = "";
-                    }
-                    contact.prefix = cursor.getString(cursor.getColumnIndex(StructuredName.PREFIX));
-                    contact.suffix = cursor.getString(cursor.getColumnIndex(StructuredName.SUFFIX));
+    private static void decodeWebsite(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        String url = cursor.getString(schema.websiteUrl);
+        int websiteType = cursor.getInt(schema.websiteType);
+        if (!TextUtils.isEmpty(url)) {
+            String label;
+            switch (websiteType) {
+                case Website.TYPE_HOMEPAGE:
+                    label = "homepage";
                     break;
-                case Phone.CONTENT_ITEM_TYPE:
-                    String phoneNumber = cursor.getString(cursor.getColumnIndex(Phone.NUMBER));
-                    int phoneType = cursor.getInt(cursor.getColumnIndex(Phone.TYPE));
-
-                    if (!TextUtils.isEmpty(phoneNumber)) {
-                        final String label;
-                        int labelIndex = cursor.getColumnIndex(ContactsContract.CommonDataKinds.Phone.LABEL);
-                        if (labelIndex >= 0) {
-                            String typeLabel = cursor.getString(labelIndex);
-                            label = ContactsContract.CommonDataKinds.Phone
-                                    .getTypeLabel(Resources.getSystem(), phoneType, typeLabel).toString();
-                        } else {
-                            label = "other";
-                        }
-                        contact.phones.add(new Contact.Item(label, phoneNumber, id));
-                    }
+                case Website.TYPE_BLOG:
+                    label = "blog";
                     break;
-                case Email.CONTENT_ITEM_TYPE:
-                    String email = cursor.getString(cursor.getColumnIndex(Email.ADDRESS));
-                    int emailType = cursor.getInt(cursor.getColumnIndex(Email.TYPE));
-                    if (!TextUtils.isEmpty(email)) {
-                        String label;
-                        switch (emailType) {
-                            case Email.TYPE_HOME:
-                                label = "home";
-                                break;
-                            case Email.TYPE_WORK:
-                                label = "work";
-                                break;
-                            case Email.TYPE_MOBILE:
-                                label = "mobile";
-                                break;
-                            case Email.TYPE_OTHER:
-                                label = "other";
-                                break;
-                            case Email.TYPE_CUSTOM:
-                                if (cursor.getString(cursor.getColumnIndex(Email.LABEL)) != null) {
-                                    label = cursor.getString(cursor.getColumnIndex(Email.LABEL)).toLowerCase();
-                                } else {
-                                    label = "";
-                                }
-                                break;
-                            default:
-                                label = "other";
-                        }
-                        contact.emails.add(new Contact.Item(label, email, id));
-                    }
+                case Website.TYPE_PROFILE:
+                    label = "profile";
                     break;
-                case Website.CONTENT_ITEM_TYPE:
-                    String url = cursor.getString(cursor.getColumnIndex(Website.URL));
-                    int websiteType = cursor.getInt(cursor.getColumnIndex(Website.TYPE));
-                    if (!TextUtils.isEmpty(url)) {
-                        String label;
-                        switch (websiteType) {
-                            case Website.TYPE_HOMEPAGE:
-                                label = "homepage";
-                                break;
-                            case Website.TYPE_BLOG:
-                                label = "blog";
-                                break;
-                            case Website.TYPE_PROFILE:
-                                label = "profile";
-                                break;
-                            case Website.TYPE_HOME:
-                                label = "home";
-                                break;
-                            case Website.TYPE_WORK:
-                                label = "work";
-                                break;
-                            case Website.TYPE_FTP:
-                                label = "ftp";
-                                break;
-                            case Website.TYPE_CUSTOM:
-                                if (cursor.getString(cursor.getColumnIndex(Website.LABEL)) != null) {
-                                    label = cursor.getString(cursor.getColumnIndex(Website.LABEL)).toLowerCase();
-                                } else {
-                                    label = "";
-                                }
-                                break;
-                            default:
-                                label = "other";
-                        }
-                        contact.urls.add(new Contact.Item(label, url, id));
-                    }
+                case Website.TYPE_HOME:
+                    label = "home";
                     break;
-                case Im.CONTENT_ITEM_TYPE:
-                    String username = cursor.getString(cursor.getColumnIndex(Im.DATA));
-                    int imType = cursor.getInt(cursor.getColumnIndex(Im.PROTOCOL));
-                    if (!TextUtils.isEmpty(username)) {
-                        String label;
-                        switch (imType) {
-                            case Im.PROTOCOL_AIM:
-                                label = "AIM";
-                                break;
-                            case Im.PROTOCOL_MSN:
-                                label = "MSN";
-                                break;
-                            case Im.PROTOCOL_YAHOO:
-                                label = "Yahoo";
-                                break;
-                            case Im.PROTOCOL_SKYPE:
-                                label = "Skype";
-                                break;
-                            case Im.PROTOCOL_QQ:
-                                label = "QQ";
-                                break;
-                            case Im.PROTOCOL_GOOGLE_TALK:
-                                label = "Google Talk";
-                                break;
-                            case Im.PROTOCOL_ICQ:
-                                label = "ICQ";
-                                break;
-                            case Im.PROTOCOL_JABBER:
-                                label = "Jabber";
-                                break;
-                            case Im.PROTOCOL_NETMEETING:
-                                label = "NetMeeting";
-                                break;
-                            case Im.PROTOCOL_CUSTOM:
-                                if (cursor.getString(cursor.getColumnIndex(Im.CUSTOM_PROTOCOL)) != null) {
-                                    label = cursor.getString(cursor.getColumnIndex(Im.CUSTOM_PROTOCOL));
-                                } else {
-                                    label = "";
-                                }
-                                break;
-                            default:
-                                label = "other";
-                        }
-                        contact.instantMessengers.add(new Contact.Item(label, username, id));
-                    }
+                case Website.TYPE_WORK:
+                    label = "work";
                     break;
-                case Organization.CONTENT_ITEM_TYPE:
-                    contact.company = cursor.getString(cursor.getColumnIndex(Organization.COMPANY));
-                    contact.jobTitle = cursor.getString(cursor.getColumnIndex(Organization.TITLE));
-                    contact.department = cursor.getString(cursor.getColumnIndex(Organization.DEPARTMENT));
+                case Website.TYPE_FTP:
+                    label = "ftp";
                     break;
-                case StructuredPostal.CONTENT_ITEM_TYPE:
-                    contact.postalAddresses.add(new Contact.PostalAddressItem(cursor));
+                case Website.TYPE_CUSTOM:
+                    String customLabel = cursor.getString(schema.websiteLabel);
+                    label = customLabel != null ? customLabel.toLowerCase() : "";
                     break;
-                case Event.CONTENT_ITEM_TYPE:
-                    int eventType = cursor.getInt(cursor.getColumnIndex(Event.TYPE));
-                    if (eventType == Event.TYPE_BIRTHDAY) {
-                        try {
-                            String birthday = cursor.getString(cursor.getColumnIndex(Event.START_DATE)).replace("--",
-                                    "");
-                            String[] yearMonthDay = birthday.split("-");
-                            List<String> yearMonthDayList = Arrays.asList(yearMonthDay);
-
-                            if (yearMonthDayList.size() == 2) {
-                                // birthday is formatted "12-31"
-                                int month = Integer.parseInt(yearMonthDayList.get(0));
-                                int day = Integer.parseInt(yearMonthDayList.get(1));
-                                if (month >= 1 && month <= 12 && day >= 1 && day <= 31) {
-                                    contact.birthday = new Contact.Birthday(month, day);
-                                }
-                            } else if (yearMonthDayList.size() == 3) {
-                                // birthday is formatted "1986-12-31"
-                                int year = Integer.parseInt(yearMonthDayList.get(0));
-                                int month = Integer.parseInt(yearMonthDayList.get(1));
-                                int day = Integer.parseInt(yearMonthDayList.get(2));
-                                if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
-                                    contact.birthday = new Contact.Birthday(year, month, day);
-                                }
-                            }
-                        } catch (NumberFormatException | ArrayIndexOutOfBoundsException | NullPointerException e) {
-                            // whoops, birthday isn't in the format we expect
-                            Log.w("ContactsProvider", e.toString());
+                default:
+                    label = "other";
+            }
+            contact.urls.add(new Contact.Item(label, url, id));
+        }
+    }
 
-                        }
-                    }
+    private static void decodeIm(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        String username = cursor.getString(schema.imData);
+        int imType = cursor.getInt(schema.imProtocol);
+        if (!TextUtils.isEmpty(username)) {
+            String label;
+            switch (imType) {
+                case Im.PROTOCOL_AIM:
+                    label = "AIM";
+                    break;
+                case Im.PROTOCOL_MSN:
+                    label = "MSN";
                     break;
-                case Note.CONTENT_ITEM_TYPE:
-                    contact.note = cursor.getString(cursor.getColumnIndex(Note.NOTE));
+                case Im.PROTOCOL_YAHOO:
+                    label = "Yahoo";
                     break;
+                case Im.PROTOCOL_SKYPE:
+                    label = "Skype";
+                    break;
+                case Im.PROTOCOL_QQ:
+                    label = "QQ";
+                    break;
+                case Im.PROTOCOL_GOOGLE_TALK:
+                    label = "Google Talk";
+                    break;
+                case Im.PROTOCOL_ICQ:
+                    label = "ICQ";
+                    break;
+                case Im.PROTOCOL_JABBER:
+                    label = "Jabber";
+                    break;
+                case Im.PROTOCOL_NETMEETING:
+                    label = "NetMeeting";
+                    break;
+                case Im.PROTOCOL_CUSTOM:
+                    String customProtocol = cursor.getString(schema.imCustomProtocol);
+                    label = customProtocol != null ? customProtocol : "";
+                    break;
+                default:
+                    label = "other";
+            }
+            contact.instantMessengers.add(new Contact.Item(label, username, id));
+        }
+    }
+
+    private static void decodeOrganization(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        contact.company = cursor.getString(schema.company);
+        contact.jobTitle = cursor.getString(schema.title);
+        contact.department = cursor.getString(schema.department);
+    }
+
+    private static void decodePostal(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        contact.postalAddresses.add(new Contact.PostalAddressItem(cursor, schema));
+    }
+
+    private static void decodeEvent(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        int eventType = cursor.getInt(schema.eventType);
+        if (eventType == Event.TYPE_BIRTHDAY) {
+            try {
+                String birthday = cursor.getString(schema.eventStartDate).replace("--", "");
+                String[] yearMonthDay = birthday.split("-");
+                List<String> yearMonthDayList = Arrays.asList(yearMonthDay);
+
+                if (yearMonthDayList.size() == 2) {
+                    // birthday is formatted "12-31"
+                    int month = Integer.parseInt(yearMonthDayList.get(0));
+                    int day = Integer.parseInt(yearMonthDayList.get(1));
+                    if (month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                        contact.birthday = new Contact.Birthday(month, day);
+                    }
+                } else if (yearMonthDayList.size() == 3) {
+                    // birthday is formatted "1986-12-31"
+                    int year = Integer.parseInt(yearMonthDayList.get(0));
+                    int month = Integer.parseInt(yearMonthDayList.get(1));
+                    int day = Integer.parseInt(yearMonthDayList.get(2));
+                    if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                        contact.birthday = new Contact.Birthday(year, month, day);
+                    }
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException | NullPointerException e) {
+                // whoops, birthday isn't in the format we expect
+                Log.w("ContactsProvider", e.toString());
+
             }
         }
+    }
 
-        return map;
+    private static void decodeNote(Cursor cursor, RowSchema schema, Contact contact, String id) {
+        contact.note = cursor.getString(schema.note);
     }
 
     public String getPhotoUriFromContactId(String contactId) {
-        Cursor cursor = contentResolver.query(
+        Cursor cursor = query(
                 ContactsContract.Data.CONTENT_URI,
                 PHOTO_PROJECTION.toArray(new String[PHOTO_PROJECTION.size()]),
                 ContactsContract.RawContacts.CONTACT_ID + " = ?",
@@ -590,7 +1649,47 @@ public class ContactsProvider {
         return null;
     }
 
-    private static class Contact {
+    /**
+     * Looks up the photo URIs of several contacts, querying the Contacts table in chunks of
+     * {@link #MAX_IDS_PER_QUERY} ids.
+     *
+     * @return photo URI by contact id, holding only the contacts that have a photo
+     */
+    public Map<String, String> getPhotoUrisFromContactIds(List<String> contactIds) {
+        Map<String, String> photoUris = new HashMap<>();
+        for (int start = 0; start < contactIds.size(); start += MAX_IDS_PER_QUERY) {
+            List<String> chunk = contactIds.subList(start, Math.min(start + MAX_IDS_PER_QUERY, contactIds.size()));
+
+            StringBuilder selection = new StringBuilder(ContactsContract.Contacts._ID).append(" IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                selection.append(i == 0 ? "?" : ",?");
+            }
+            selection.append(")");
+
+            Cursor cursor = query(
+                    ContactsContract.Contacts.CONTENT_URI,
+                    new String[] { ContactsContract.Contacts._ID, ContactsContract.Contacts.PHOTO_URI },
+                    selection.toString(),
+                    chunk.toArray(new String[chunk.size()]),
+                    null);
+
+            try {
+                while (cursor != null && cursor.moveToNext()) {
+                    String photoUri = cursor.getString(1);
+                    if (!TextUtils.isEmpty(photoUri)) {
+                        photoUris.put(cursor.getString(0), photoUri);
+                    }
+                }
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+        }
+        return photoUris;
+    }
+
+    static class Contact {
         private String contactId;
         private String rawContactId;
         private String displayName;
@@ -617,7 +1716,179 @@ public class ContactsProvider {
             this.contactId = contactId;
         }
 
-        public WritableMap toMap() {
+        String getContactId() {
+            return contactId;
+        }
+
+        String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Names indexed by {@link ContactsSearchIndex}.
+         */
+        List<String> getSearchableNames() {
+            return Arrays.asList(displayName, givenName, familyName, company);
+        }
+
+        /**
+         * Rough memory footprint in bytes, used as the weight in {@link ContactsCache}.
+         */
+        int estimateSize() {
+            int size = 128 + sizeOf(contactId) + sizeOf(rawContactId) + sizeOf(displayName) + sizeOf(givenName)
+                    + sizeOf(middleName) + sizeOf(familyName) + sizeOf(prefix) + sizeOf(suffix) + sizeOf(company)
+                    + sizeOf(jobTitle) + sizeOf(department) + sizeOf(note) + sizeOf(photoUri);
+            size += sizeOf(urls) + sizeOf(instantMessengers) + sizeOf(emails) + sizeOf(phones);
+            for (PostalAddressItem item : postalAddresses) {
+                size += 64;
+                for (String value : item.values.values()) {
+                    size += sizeOf(value);
+                }
+            }
+            return size;
+        }
+
+        private static int sizeOf(List<Item> items) {
+            int size = 0;
+            for (Item item : items) {
+                size += 32 + sizeOf(item.label) + sizeOf(item.value) + sizeOf(item.id);
+            }
+            return size;
+        }
+
+        private static int sizeOf(String value) {
+            return value == null ? 0 : 40 + 2 * value.length();
+        }
+
+        /**
+         * Writes this contact as one vCard.
+         */
+        void writeVCard(ContactsVCard.Writer out) throws IOException {
+            out.beginCard();
+            out.name(familyName, givenName, middleName, prefix, suffix, displayName);
+            out.property("ORG", null, company, department);
+            out.property("TITLE", null, jobTitle);
+            for (Item item : phones) {
+                out.phone(item.type, item.label, item.value);
+            }
+            for (Item item : emails) {
+                out.email(item.label, item.value);
+            }
+            for (PostalAddressItem item : postalAddresses) {
+                Map<String, String> address = item.values;
+                out.postalAddress(address.get("label"), address.get("pobox"), address.get("street"),
+                        address.get("city"), address.get("region"), address.get("postCode"), address.get("country"));
+            }
+            for (Item item : urls) {
+                out.property("URL", null, item.value);
+            }
+            for (Item item : instantMessengers) {
+                out.instantMessenger(item.label, item.value);
+            }
+            if (birthday != null) {
+                out.property("BDAY", null, birthday.year > 0
+                        ? String.format(Locale.ROOT, "%04d-%02d-%02d", birthday.year, birthday.month, birthday.day)
+                        : String.format(Locale.ROOT, "--%02d-%02d", birthday.month, birthday.day));
+            }
+            out.property("NOTE", null, note);
+            out.endCard();
+        }
+
+        /**
+         * Writes this contact in the {@link ContactsSnapshot} format.
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            ContactsSnapshot.writeString(out, contactId);
+            ContactsSnapshot.writeString(out, rawContactId);
+            ContactsSnapshot.writeString(out, displayName);
+            ContactsSnapshot.writeString(out, givenName);
+            ContactsSnapshot.writeString(out, middleName);
+            ContactsSnapshot.writeString(out, familyName);
+            ContactsSnapshot.writeString(out, prefix);
+            ContactsSnapshot.writeString(out, suffix);
+            ContactsSnapshot.writeString(out, company);
+            ContactsSnapshot.writeString(out, jobTitle);
+            ContactsSnapshot.writeString(out, department);
+            ContactsSnapshot.writeString(out, note);
+            ContactsSnapshot.writeString(out, photoUri);
+            out.writeBoolean(hasPhoto);
+            out.writeBoolean(isStarred);
+            writeItems(out, urls);
+            writeItems(out, instantMessengers);
+            writeItems(out, emails);
+            writeItems(out, phones);
+            out.writeInt(postalAddresses.size());
+            for (PostalAddressItem item : postalAddresses) {
+                out.writeInt(item.values.size());
+                for (Map.Entry<String, String> entry : item.values.entrySet()) {
+                    ContactsSnapshot.writeString(out, entry.getKey());
+                    ContactsSnapshot.writeString(out, entry.getValue());
+                }
+            }
+            out.writeBoolean(birthday != null);
+            if (birthday != null) {
+                out.writeInt(birthday.year);
+                out.writeInt(birthday.month);
+                out.writeInt(birthday.day);
+            }
+        }
+
+        /**
+         * Reads a contact written by {@link #writeTo(DataOutputStream)}.
+         */
+        static Contact readFrom(ByteBuffer in) {
+            Contact contact = new Contact(ContactsSnapshot.readString(in));
+            contact.rawContactId = ContactsSnapshot.readString(in);
+            contact.displayName = ContactsSnapshot.readString(in);
+            contact.givenName = ContactsSnapshot.readString(in);
+            contact.middleName = ContactsSnapshot.readString(in);
+            contact.familyName = ContactsSnapshot.readString(in);
+            contact.prefix = ContactsSnapshot.readString(in);
+            contact.suffix = ContactsSnapshot.readString(in);
+            contact.company = ContactsSnapshot.readString(in);
+            contact.jobTitle = ContactsSnapshot.readString(in);
+            contact.department = ContactsSnapshot.readString(in);
+            contact.note = ContactsSnapshot.readString(in);
+            contact.photoUri = ContactsSnapshot.readString(in);
+            contact.hasPhoto = in.get() != 0;
+            contact.isStarred = in.get() != 0;
+            readItems(in, contact.urls);
+            readItems(in, contact.instantMessengers);
+            readItems(in, contact.emails);
+            readItems(in, contact.phones);
+            int postalCount = in.getInt();
+            for (int i = 0; i < postalCount; i++) {
+                Map<String, String> values = new LinkedHashMap<>();
+                int valueCount = in.getInt();
+                for (int j = 0; j < valueCount; j++) {
+                    values.put(ContactsSnapshot.readString(in), ContactsSnapshot.readString(in));
+                }
+                contact.postalAddresses.add(new PostalAddressItem(values));
+            }
+            if (in.get() != 0) {
+                contact.birthday = new Birthday(in.getInt(), in.getInt(), in.getInt());
+            }
+            return contact;
+        }
+
+        private static void writeItems(DataOutputStream out, List<Item> items) throws IOException {
+            out.writeInt(items.size());
+            for (Item item : items) {
+                ContactsSnapshot.writeString(out, item.label);
+                ContactsSnapshot.writeString(out, item.value);
+                ContactsSnapshot.writeString(out, item.id);
+            }
+        }
+
+        private static void readItems(ByteBuffer in, List<Item> items) {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                items.add(new Item(ContactsSnapshot.readString(in), ContactsSnapshot.readString(in),
+                        ContactsSnapshot.readString(in)));
+            }
+        }
+
+        public WritableMap toMap(ContactFields fields) {
             WritableMap contact = Arguments.createMap();
             contact.putString("recordID", contactId);
             contact.putString("rawContactId", rawContactId);
@@ -627,60 +1898,74 @@ public class ContactsProvider {
             contact.putString("familyName", familyName);
             contact.putString("prefix", prefix);
             contact.putString("suffix", suffix);
-            contact.putString("company", company);
-            contact.putString("jobTitle", jobTitle);
-            contact.putString("department", department);
-            contact.putString("note", note);
+            if (fields.includes(ContactFields.ORGANIZATION)) {
+                contact.putString("company", company);
+                contact.putString("jobTitle", jobTitle);
+                contact.putString("department", department);
+            }
+            if (fields.includes(ContactFields.NOTE)) {
+                contact.putString("note", note);
+            }
             contact.putBoolean("hasThumbnail", this.hasPhoto);
             contact.putString("thumbnailPath", photoUri == null ? "" : photoUri);
             contact.putBoolean("isStarred", this.isStarred);
 
-            WritableArray phoneNumbers = Arguments.createArray();
-            for (Item item : phones) {
-                WritableMap map = Arguments.createMap();
-                map.putString("number", item.value);
-                map.putString("label", item.label);
-                map.putString("id", item.id);
-                phoneNumbers.pushMap(map);
+            if (fields.includes(ContactFields.PHONE_NUMBERS)) {
+                WritableArray phoneNumbers = Arguments.createArray();
+                for (Item item : phones) {
+                    WritableMap map = Arguments.createMap();
+                    map.putString("number", item.value);
+                    map.putString("label", item.label);
+                    map.putString("id", item.id);
+                    phoneNumbers.pushMap(map);
+                }
+                contact.putArray("phoneNumbers", phoneNumbers);
             }
-            contact.putArray("phoneNumbers", phoneNumbers);
 
-            WritableArray urlAddresses = Arguments.createArray();
-            for (Item item : urls) {
-                WritableMap map = Arguments.createMap();
-                map.putString("url", item.value);
-                map.putString("id", item.id);
-                urlAddresses.pushMap(map);
+            if (fields.includes(ContactFields.URL_ADDRESSES)) {
+                WritableArray urlAddresses = Arguments.createArray();
+                for (Item item : urls) {
+                    WritableMap map = Arguments.createMap();
+                    map.putString("url", item.value);
+                    map.putString("id", item.id);
+                    urlAddresses.pushMap(map);
+                }
+                contact.putArray("urlAddresses", urlAddresses);
             }
-            contact.putArray("urlAddresses", urlAddresses);
 
-            WritableArray imAddresses = Arguments.createArray();
-            for (Item item : instantMessengers) {
-                WritableMap map = Arguments.createMap();
-                map.putString("username", item.value);
-                map.putString("service", item.label);
-                imAddresses.pushMap(map);
+            if (fields.includes(ContactFields.IM_ADDRESSES)) {
+                WritableArray imAddresses = Arguments.createArray();
+                for (Item item : instantMessengers) {
+                    WritableMap map = Arguments.createMap();
+                    map.putString("username", item.value);
+                    map.putString("service", item.label);
+                    imAddresses.pushMap(map);
+                }
+                contact.putArray("imAddresses", imAddresses);
             }
-            contact.putArray("imAddresses", imAddresses);
 
-            WritableArray emailAddresses = Arguments.createArray();
-            for (Item item : emails) {
-                WritableMap map = Arguments.createMap();
-                map.putString("email", item.value);
-                map.putString("label", item.label);
-                map.putString("id", item.id);
-                emailAddresses.pushMap(map);
+            if (fields.includes(ContactFields.EMAIL_ADDRESSES)) {
+                WritableArray emailAddresses = Arguments.createArray();
+                for (Item item : emails) {
+                    WritableMap map = Arguments.createMap();
+                    map.putString("email", item.value);
+                    map.putString("label", item.label);
+                    map.putString("id", item.id);
+                    emailAddresses.pushMap(map);
+                }
+                contact.putArray("emailAddresses", emailAddresses);
             }
-            contact.putArray("emailAddresses", emailAddresses);
 
-            WritableArray postalAddresses = Arguments.createArray();
-            for (PostalAddressItem item : this.postalAddresses) {
-                postalAddresses.pushMap(item.map);
+            if (fields.includes(ContactFields.POSTAL_ADDRESSES)) {
+                WritableArray postalAddresses = Arguments.createArray();
+                for (PostalAddressItem item : this.postalAddresses) {
+                    postalAddresses.pushMap(item.toMap());
+                }
+                contact.putArray("postalAddresses", postalAddresses);
             }
-            contact.putArray("postalAddresses", postalAddresses);
 
             WritableMap birthdayMap = Arguments.createMap();
-            if (birthday != null) {
+            if (birthday != null && fields.includes(ContactFields.BIRTHDAY)) {
                 if (birthday.year > 0) {
                     birthdayMap.putInt("year", birthday.year);
                 }
@@ -696,6 +1981,8 @@ public class ContactsProvider {
             public String label;
             public String value;
             public String id;
+            // Phone.TYPE_* of phone numbers, the label only names it for display
+            public int type = -1;
 
             public Item(String label, String value, String id) {
                 this.id = id;
@@ -727,37 +2014,48 @@ public class ContactsProvider {
         }
 
         public static class PostalAddressItem {
-            public final WritableMap map;
+            public final Map<String, String> values;
 
-            public PostalAddressItem(Cursor cursor) {
-                map = Arguments.createMap();
+            PostalAddressItem(Map<String, String> values) {
+                this.values = values;
+            }
 
-                map.putString("label", getLabel(cursor));
-                putString(cursor, "formattedAddress", StructuredPostal.FORMATTED_ADDRESS);
-                putString(cursor, "street", StructuredPostal.STREET);
-                putString(cursor, "pobox", StructuredPostal.POBOX);
-                putString(cursor, "neighborhood", StructuredPostal.NEIGHBORHOOD);
-                putString(cursor, "city", StructuredPostal.CITY);
-                putString(cursor, "region", StructuredPostal.REGION);
-                putString(cursor, "state", StructuredPostal.REGION);
-                putString(cursor, "postCode", StructuredPostal.POSTCODE);
-                putString(cursor, "country", StructuredPostal.COUNTRY);
+            PostalAddressItem(Cursor cursor, RowSchema schema) {
+                values = new LinkedHashMap<>();
+                values.put("label", getLabel(cursor, schema));
+                putString(cursor, "formattedAddress", schema.postalFormattedAddress);
+                putString(cursor, "street", schema.postalStreet);
+                putString(cursor, "pobox", schema.postalPobox);
+                putString(cursor, "neighborhood", schema.postalNeighborhood);
+                putString(cursor, "city", schema.postalCity);
+                putString(cursor, "region", schema.postalRegion);
+                putString(cursor, "state", schema.postalRegion);
+                putString(cursor, "postCode", schema.postalPostcode);
+                putString(cursor, "country", schema.postalCountry);
             }
 
-            private void putString(Cursor cursor, String key, String androidKey) {
-                final String value = cursor.getString(cursor.getColumnIndex(androidKey));
+            private void putString(Cursor cursor, String key, int columnIndex) {
+                final String value = cursor.getString(columnIndex);
                 if (!TextUtils.isEmpty(value))
-                    map.putString(key, value);
+                    values.put(key, value);
+            }
+
+            public WritableMap toMap() {
+                WritableMap map = Arguments.createMap();
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    map.putString(entry.getKey(), entry.getValue());
+                }
+                return map;
             }
 
-            static String getLabel(Cursor cursor) {
-                switch (cursor.getInt(cursor.getColumnIndex(StructuredPostal.TYPE))) {
+            static String getLabel(Cursor cursor, RowSchema schema) {
+                switch (cursor.getInt(schema.postalType)) {
                     case StructuredPostal.TYPE_HOME:
                         return "home";
                     case StructuredPostal.TYPE_WORK:
                         return "work";
                     case StructuredPostal.TYPE_CUSTOM:
-                        final String label = cursor.getString(cursor.getColumnIndex(StructuredPostal.LABEL));
+                        final String label = cursor.getString(schema.postalLabel);
                         return label != null ? label : "";
                 }
                 return "other";
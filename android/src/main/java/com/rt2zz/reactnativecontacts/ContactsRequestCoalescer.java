@@ -0,0 +1,134 @@
+package com.rt2zz.reactnativecontacts;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets identical reads issued while one of them is still running share its result instead of querying the
+ * contacts provider again.
+ * <p>
+ * Reads are keyed by method and arguments. The first read of a key is scheduled; later ones only add their promise
+ * until it completes, and every promise is settled from the single result. Every promise after the first gets its own
+ * copy of the result, as a bridge map or array can be handed to JS only once.
+ * <p>
+ * A write to the address book ends sharing, so a read issued after a write never gets the result of a read that
+ * started before it.
+ */
+public class ContactsRequestCoalescer {
+    private final ContactsScheduler scheduler;
+    private final Map<String, List<Promise>> inFlight = new HashMap<>();
+    private long started;
+    private long joined;
+
+    public interface Read {
+        /**
+         * @return the value to resolve with
+         */
+        Object run() throws Exception;
+    }
+
+    public ContactsRequestCoalescer(ContactsScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Settles <code>promise</code> with the result of <code>read</code>, run on the scheduler unless a read of the
+     * same <code>method</code> and <code>arguments</code> is running already.
+     *
+     * @param arguments key of the arguments of the read, empty if it takes none
+     * @param priority {@link ContactsScheduler#PRIORITY_INTERACTIVE} or {@link ContactsScheduler#PRIORITY_BULK}
+     */
+    public void read(String method, String arguments, int priority, Promise promise, final Read read) {
+        final String key = method + ":" + arguments;
+        final List<Promise> waiting;
+        synchronized (this) {
+            List<Promise> running = inFlight.get(key);
+            if (running != null) {
+                running.add(promise);
+                joined++;
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(promise);
+            inFlight.put(key, waiting);
+            started++;
+        }
+
+        scheduler.readOrElse(method, priority, () -> {
+            Object result = null;
+            Exception error = null;
+            try {
+                result = read.run();
+            } catch (Exception e) {
+                error = e;
+            }
+
+            List<Promise> promises = remove(key, waiting);
+
+            // copies are made before the result itself is handed over
+            List<Object> results = new ArrayList<>(promises.size());
+            results.add(result);
+            for (int i = 1; i < promises.size(); i++) {
+                results.add(error == null ? copy(result) : null);
+            }
+            for (int i = 0; i < promises.size(); i++) {
+                if (error != null) {
+                    promises.get(i).reject(error);
+                } else {
+                    promises.get(i).resolve(results.get(i));
+                }
+            }
+        }, () -> {
+            // the scheduler is shut down, the key must not keep collecting promises that never settle
+            for (Promise waitingPromise : remove(key, waiting)) {
+                waitingPromise.reject(ContactsScheduler.SHUT_DOWN, "Contacts module is shut down");
+            }
+        });
+    }
+
+    /*
+     * ends sharing of a read, returning the promises waiting for it
+     */
+    private synchronized List<Promise> remove(String key, List<Promise> waiting) {
+        if (inFlight.get(key) == waiting) {
+            inFlight.remove(key);
+        }
+        return new ArrayList<>(waiting);
+    }
+
+    /**
+     * Stops later reads from joining the ones running now.
+     */
+    public synchronized void invalidate() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return <code>started</code> reads and <code>joined</code> ones, which shared the result of a started read
+     * instead of querying the provider
+     */
+    public synchronized WritableMap getStats() {
+        WritableMap stats = Arguments.createMap();
+        stats.putDouble("started", started);
+        stats.putDouble("joined", joined);
+        return stats;
+    }
+
+    private static Object copy(Object result) {
+        if (result instanceof ReadableMap) {
+            return Arguments.makeNativeMap(((ReadableMap) result).toHashMap());
+        }
+        if (result instanceof ReadableArray) {
+            return Arguments.makeNativeArray(((ReadableArray) result).toArrayList());
+        }
+        return result;
+    }
+}
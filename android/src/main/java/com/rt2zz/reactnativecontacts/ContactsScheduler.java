@@ -0,0 +1,257 @@
+package com.rt2zz.reactnativecontacts;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs module work in separate lanes, so a long scan of the address book does not hold up a single lookup.
+ * <p>
+ * Reads run on a bounded pool in two priority classes. Interactive reads, such as lookups by id, searches and
+ * photos, always start ahead of queued bulk reads, such as full scans and exports. Bulk reads never take all of the
+ * pool, so an interactive read finds a free thread even while several scans run. Writes to the contacts provider
+ * run one at a time, in submission order, on their own thread.
+ * <p>
+ * Every class counts its queued, running and completed tasks and the time they waited before starting. Every task
+ * is also recorded in {@link ContactsMetrics} under the name of the module method it serves.
+ */
+public class ContactsScheduler {
+    public static final int PRIORITY_INTERACTIVE = 0;
+    public static final int PRIORITY_BULK = 1;
+    public static final String SHUT_DOWN = "shutdown";
+    private static final int WRITE = 2;
+    private static final String[] NAMES = { "interactive", "bulk", "write" };
+
+    private static final int MAX_DEFAULT_READ_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final Lane[] lanes = { new Lane(), new Lane(), new Lane() };
+    private final ContactsMetrics metrics;
+    private final ThreadPoolExecutor readPool;
+    private final ThreadPoolExecutor writePool;
+    private int readThreads;
+    private int bulkThreads;
+    private int runningReads;
+    private boolean shutdown;
+
+    private static class Lane {
+        final Queue<Task> queue = new ArrayDeque<>();
+        int running;
+        long completed;
+        long totalWaitNanos;
+        long maxWaitNanos;
+    }
+
+    private static class Task {
+        final int lane;
+        final String name;
+        final Runnable runnable;
+        final Runnable onRejected;
+        final long enqueuedAt = System.nanoTime();
+
+        Task(int lane, String name, Runnable runnable, Runnable onRejected) {
+            this.lane = lane;
+            this.name = name;
+            this.runnable = runnable;
+            this.onRejected = onRejected;
+        }
+    }
+
+    public ContactsScheduler(ContactsMetrics metrics) {
+        this.metrics = metrics;
+        readThreads = getDefaultReadThreads();
+        bulkThreads = getDefaultBulkThreads(readThreads);
+        readPool = new ThreadPoolExecutor(readThreads, readThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("RCTContacts-read"));
+        readPool.allowCoreThreadTimeOut(true);
+        writePool = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("RCTContacts-write"));
+        writePool.allowCoreThreadTimeOut(true);
+    }
+
+    public static int getDefaultReadThreads() {
+        return Math.max(2, Math.min(MAX_DEFAULT_READ_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @return threads bulk reads may take, all but one of the read pool
+     */
+    public static int getDefaultBulkThreads(int readThreads) {
+        return Math.max(1, readThreads - 1);
+    }
+
+    /**
+     * Resizes the read pool. Running reads finish on their threads; queued ones start as threads free up.
+     *
+     * @param bulkThreads at most this many reads of {@link #PRIORITY_BULK} run at once
+     */
+    public synchronized void configure(int readThreads, int bulkThreads) {
+        this.readThreads = Math.max(readThreads, 1);
+        this.bulkThreads = Math.min(Math.max(bulkThreads, 1), this.readThreads);
+        if (this.readThreads > readPool.getMaximumPoolSize()) {
+            readPool.setMaximumPoolSize(this.readThreads);
+            readPool.setCorePoolSize(this.readThreads);
+        } else {
+            readPool.setCorePoolSize(this.readThreads);
+            readPool.setMaximumPoolSize(this.readThreads);
+        }
+        dispatch();
+    }
+
+    /**
+     * @param name module method the read serves, the key of its metrics
+     * @param priority {@link #PRIORITY_INTERACTIVE} or {@link #PRIORITY_BULK}
+     * @param promise rejected with {@link #SHUT_DOWN} if the scheduler is shut down before the read starts, may be
+     * <code>null</code>
+     */
+    public void read(String name, int priority, Promise promise, Runnable runnable) {
+        readOrElse(name, priority, runnable, rejection(promise));
+    }
+
+    /**
+     * Like {@link #read(String, int, Promise, Runnable)}, running <code>onRejected</code> instead of
+     * <code>runnable</code> if the scheduler is shut down before the read starts.
+     */
+    public void readOrElse(String name, int priority, Runnable runnable, Runnable onRejected) {
+        submit(priority == PRIORITY_BULK ? PRIORITY_BULK : PRIORITY_INTERACTIVE, name, runnable, onRejected);
+    }
+
+    /**
+     * Queues a task changing the address book behind all writes submitted before.
+     *
+     * @see #read(String, int, Promise, Runnable)
+     */
+    public void write(String name, Promise promise, Runnable runnable) {
+        submit(WRITE, name, runnable, rejection(promise));
+    }
+
+    /*
+     * calls arriving while the module is torn down, e.g. during a reload, are rejected instead of throwing on
+     * the bridge thread
+     */
+    private void submit(int lane, String name, Runnable runnable, Runnable onRejected) {
+        synchronized (this) {
+            if (!shutdown) {
+                lanes[lane].queue.add(new Task(lane, name, runnable, onRejected));
+                dispatch();
+                return;
+            }
+        }
+        onRejected.run();
+    }
+
+    private static Runnable rejection(final Promise promise) {
+        return () -> {
+            if (promise != null) {
+                promise.reject(SHUT_DOWN, "Contacts module is shut down");
+            }
+        };
+    }
+
+    /*
+     * hands queued tasks to the pools while their lane has a free thread, interactive reads first
+     */
+    private synchronized void dispatch() {
+        while (runningReads < readThreads) {
+            Task task = lanes[PRIORITY_INTERACTIVE].queue.poll();
+            if (task == null && lanes[PRIORITY_BULK].running < bulkThreads) {
+                task = lanes[PRIORITY_BULK].queue.poll();
+            }
+            if (task == null) {
+                break;
+            }
+            runningReads++;
+            start(task, readPool);
+        }
+
+        if (lanes[WRITE].running == 0) {
+            Task task = lanes[WRITE].queue.poll();
+            if (task != null) {
+                start(task, writePool);
+            }
+        }
+    }
+
+    private void start(final Task task, ThreadPoolExecutor pool) {
+        Lane lane = lanes[task.lane];
+        final long waitNanos = System.nanoTime() - task.enqueuedAt;
+        lane.running++;
+        lane.totalWaitNanos += waitNanos;
+        lane.maxWaitNanos = Math.max(lane.maxWaitNanos, waitNanos);
+        pool.execute(() -> {
+            ContactsMetrics.Call call = metrics.begin(task.name, waitNanos);
+            try {
+                task.runnable.run();
+            } finally {
+                metrics.end(call);
+                finish(task);
+            }
+        });
+    }
+
+    private synchronized void finish(Task task) {
+        Lane lane = lanes[task.lane];
+        lane.running--;
+        lane.completed++;
+        if (task.lane != WRITE) {
+            runningReads--;
+        }
+        dispatch();
+    }
+
+    /**
+     * @return for every class, <code>interactive</code>, <code>bulk</code> and <code>write</code>: the number of
+     * <code>queued</code>, <code>running</code> and <code>completed</code> tasks and the <code>averageWaitMs</code>
+     * and <code>maxWaitMs</code> of the started ones; plus the configured <code>readThreads</code> and
+     * <code>bulkThreads</code>
+     */
+    public synchronized WritableMap getStats() {
+        WritableMap stats = Arguments.createMap();
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = lanes[i];
+            long started = lane.completed + lane.running;
+            WritableMap laneStats = Arguments.createMap();
+            laneStats.putInt("queued", lane.queue.size());
+            laneStats.putInt("running", lane.running);
+            laneStats.putDouble("completed", lane.completed);
+            laneStats.putDouble("averageWaitMs", started > 0 ? lane.totalWaitNanos / 1e6 / started : 0);
+            laneStats.putDouble("maxWaitMs", lane.maxWaitNanos / 1e6);
+            stats.putMap(NAMES[i], laneStats);
+        }
+        stats.putInt("readThreads", readThreads);
+        stats.putInt("bulkThreads", bulkThreads);
+        return stats;
+    }
+
+    /**
+     * Stops the threads once the running tasks are done. Queued tasks are dropped and rejected.
+     */
+    public void shutdown() {
+        Queue<Task> dropped = new ArrayDeque<>();
+        synchronized (this) {
+            shutdown = true;
+            for (Lane lane : lanes) {
+                dropped.addAll(lane.queue);
+                lane.queue.clear();
+            }
+            readPool.shutdown();
+            writePool.shutdown();
+        }
+        for (Task task : dropped) {
+            task.onRejected.run();
+        }
+    }
+
+    private static ThreadFactory threadFactory(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(runnable, name + "-" + count.incrementAndGet());
+    }
+}
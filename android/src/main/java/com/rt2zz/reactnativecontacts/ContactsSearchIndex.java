@@ -0,0 +1,336 @@
+package com.rt2zz.reactnativecontacts;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.provider.ContactsContract;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opt-in in-memory index over display, given, family and company names, answering
+ * <code>getContactsMatchingString</code> without scanning the Data table.
+ * <p>
+ * Names are lower-cased and stripped of diacritics. Every trigram of a name is kept in a postings map, so
+ * substring queries of three or more characters only check the contacts sharing all of their trigrams. Queries of
+ * one or two characters are looked up in postings of the single characters and character pairs of the names, so
+ * they find the same substrings as the provider query. Every word is kept in a sorted word map, which ranks the
+ * contacts with a name word starting with the query first.
+ * <p>
+ * A ContentObserver marks the index dirty; {@link ContactsProvider} then applies the changes since the last
+ * update before the next search.
+ */
+public class ContactsSearchIndex {
+    private static final int RANK_EXACT_WORD = 0;
+    private static final int RANK_WORD_PREFIX = 1;
+    private static final int RANK_SUBSTRING = 2;
+
+    private final ContentResolver contentResolver;
+    private final ContentObserver observer = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange) {
+            markDirty();
+        }
+    };
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Set<String>> words = new TreeMap<>();
+    private final Map<String, Set<String>> shortGrams = new HashMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private boolean enabled;
+    private boolean built;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private long timestamp;
+
+    private static class Entry {
+        final String contactId;
+        final String sortKey;
+        final List<String> names = new ArrayList<>();
+        final Set<String> words = new LinkedHashSet<>();
+
+        Entry(String contactId, String sortKey) {
+            this.contactId = contactId;
+            this.sortKey = sortKey;
+        }
+    }
+
+    public ContactsSearchIndex(ContentResolver contentResolver) {
+        this.contentResolver = contentResolver;
+    }
+
+    /**
+     * Starts maintaining the index. It is built on the first search.
+     */
+    public synchronized void enable() {
+        if (enabled) {
+            return;
+        }
+        enabled = true;
+        contentResolver.registerContentObserver(ContactsContract.Contacts.CONTENT_URI, true, observer);
+        contentResolver.registerContentObserver(ContactsContract.Profile.CONTENT_URI, true, observer);
+    }
+
+    public synchronized void disable() {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        contentResolver.unregisterContentObserver(observer);
+        clear();
+        built = false;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    synchronized boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * @return whether changes were reported since the last update, clearing the flag so changes reported while
+     * the caller applies them mark the index dirty again
+     */
+    boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    synchronized long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Replaces the content of the index.
+     *
+     * @param timestamp provider changes up to this time are included
+     */
+    synchronized void rebuild(long timestamp, Collection<ContactsProvider.Contact> contacts) {
+        clear();
+        for (ContactsProvider.Contact contact : contacts) {
+            add(contact);
+        }
+        this.timestamp = timestamp;
+        built = true;
+    }
+
+    synchronized void apply(long timestamp, Collection<ContactsProvider.Contact> updated, Collection<String> deletedIds) {
+        for (String contactId : deletedIds) {
+            remove(contactId);
+        }
+        for (ContactsProvider.Contact contact : updated) {
+            remove(contact.getContactId());
+            add(contact);
+        }
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return ids of the contacts with a name containing <code>query</code>, contacts with a name word equal to
+     * or starting with it first
+     */
+    synchronized List<String> search(String query) {
+        final String normalized = normalize(query).trim();
+        if (normalized.isEmpty()) {
+            List<Entry> all = new ArrayList<>(entries.values());
+            Collections.sort(all, (a, b) -> compare(a, b));
+            List<String> contactIds = new ArrayList<>(all.size());
+            for (Entry entry : all) {
+                contactIds.add(entry.contactId);
+            }
+            return contactIds;
+        }
+
+        Set<String> prefixed = new HashSet<>();
+        for (Set<String> postings : words.subMap(normalized, normalized + Character.MAX_VALUE).values()) {
+            prefixed.addAll(postings);
+        }
+        final Map<String, Integer> ranks = new HashMap<>();
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : candidates(normalized)) {
+            int rank = rank(entry, normalized, prefixed.contains(entry.contactId));
+            if (rank >= 0) {
+                ranks.put(entry.contactId, rank);
+                matches.add(entry);
+            }
+        }
+
+        Collections.sort(matches, (a, b) -> {
+            int byRank = Integer.compare(ranks.get(a.contactId), ranks.get(b.contactId));
+            return byRank != 0 ? byRank : compare(a, b);
+        });
+        List<String> contactIds = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            contactIds.add(entry.contactId);
+        }
+        return contactIds;
+    }
+
+    private Collection<Entry> candidates(String query) {
+        Set<String> contactIds = new HashSet<>();
+        if (query.length() < 3) {
+            Set<String> postings = shortGrams.get(query);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            contactIds.addAll(postings);
+        }
+
+        boolean first = true;
+        for (String trigram : gramsOf(query, 3)) {
+            Set<String> postings = trigrams.get(trigram);
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            if (first) {
+                contactIds.addAll(postings);
+                first = false;
+            } else {
+                contactIds.retainAll(postings);
+            }
+            if (contactIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Entry> candidates = new ArrayList<>(contactIds.size());
+        for (String contactId : contactIds) {
+            candidates.add(entries.get(contactId));
+        }
+        return candidates;
+    }
+
+    /*
+     * -1 when the query is not part of any name
+     */
+    private int rank(Entry entry, String query, boolean prefixed) {
+        if (entry.words.contains(query)) {
+            return RANK_EXACT_WORD;
+        }
+        if (prefixed) {
+            return RANK_WORD_PREFIX;
+        }
+        for (String name : entry.names) {
+            if (name.contains(query)) {
+                return RANK_SUBSTRING;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(Entry a, Entry b) {
+        int bySortKey = a.sortKey.compareTo(b.sortKey);
+        return bySortKey != 0 ? bySortKey : a.contactId.compareTo(b.contactId);
+    }
+
+    private void add(ContactsProvider.Contact contact) {
+        String contactId = contact.getContactId();
+        String displayName = contact.getDisplayName();
+        Entry entry = new Entry(contactId, normalize(displayName != null ? displayName : ""));
+        for (String value : contact.getSearchableNames()) {
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            String name = normalize(value);
+            if (entry.names.contains(name)) {
+                continue;
+            }
+            entry.names.add(name);
+            for (String word : name.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    entry.words.add(word);
+                }
+            }
+        }
+
+        entries.put(contactId, entry);
+        for (String word : entry.words) {
+            postingsFor(words, word).add(contactId);
+        }
+        for (String name : entry.names) {
+            for (int length = 1; length < 3; length++) {
+                for (String gram : gramsOf(name, length)) {
+                    postingsFor(shortGrams, gram).add(contactId);
+                }
+            }
+            for (String trigram : gramsOf(name, 3)) {
+                postingsFor(trigrams, trigram).add(contactId);
+            }
+        }
+    }
+
+    private void remove(String contactId) {
+        Entry entry = entries.remove(contactId);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words) {
+            removePosting(words, word, contactId);
+        }
+        for (String name : entry.names) {
+            for (int length = 1; length < 3; length++) {
+                for (String gram : gramsOf(name, length)) {
+                    removePosting(shortGrams, gram, contactId);
+                }
+            }
+            for (String trigram : gramsOf(name, 3)) {
+                removePosting(trigrams, trigram, contactId);
+            }
+        }
+    }
+
+    private void clear() {
+        entries.clear();
+        words.clear();
+        shortGrams.clear();
+        trigrams.clear();
+        timestamp = 0;
+    }
+
+    private static Set<String> postingsFor(Map<String, Set<String>> map, String key) {
+        Set<String> postings = map.get(key);
+        if (postings == null) {
+            postings = new HashSet<>();
+            map.put(key, postings);
+        }
+        return postings;
+    }
+
+    private static void removePosting(Map<String, Set<String>> map, String key, String contactId) {
+        Set<String> postings = map.get(key);
+        if (postings != null) {
+            postings.remove(contactId);
+            if (postings.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> gramsOf(String value, int length) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + length <= value.length(); i++) {
+            result.add(value.substring(i, i + length));
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+    }
+}
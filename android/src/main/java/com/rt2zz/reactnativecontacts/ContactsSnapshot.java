@@ -0,0 +1,175 @@
+package com.rt2zz.reactnativecontacts;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk copy of the decoded address book, used to show contacts on cold start before the contacts
+ * provider was read.
+ * <p>
+ * The file is a compact binary format, memory-mapped when read:
+ * <pre>
+ * int   magic
+ * int   format version
+ * long  timestamp, high-water mark of the provider changes the snapshot includes
+ * int   contact count
+ * ...   contacts, see ContactsProvider.Contact#writeTo
+ * </pre>
+ * Strings are stored as an int byte length (-1 for <code>null</code>) followed by UTF-8 bytes.
+ * Only plain Java APIs are used, so the format, reader and writer can be unit-tested on the JVM.
+ */
+public class ContactsSnapshot {
+    private static final int MAGIC = 0x524e4353; // "RNCS"
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final Map<String, ContactsProvider.Contact> contacts = new LinkedHashMap<>();
+    private long timestamp;
+
+    public ContactsSnapshot(File file) {
+        this.file = file;
+    }
+
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * Reads the snapshot file.
+     *
+     * @return <code>false</code> if there is no snapshot, it was written by another format version or it is
+     * corrupt
+     */
+    public boolean load() throws IOException {
+        contacts.clear();
+        timestamp = 0;
+        if (!exists()) {
+            return false;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 20 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                return false;
+            }
+
+            long snapshotTimestamp = in.getLong();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                ContactsProvider.Contact contact = ContactsProvider.Contact.readFrom(in);
+                contacts.put(contact.getContactId(), contact);
+            }
+            timestamp = snapshotTimestamp;
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            contacts.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file first and renames it, so readers never see a partial file. The
+     * temporary file is named after the thread, as reads running in parallel may save at the same time.
+     */
+    public void save() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+
+        File tmp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(timestamp);
+            out.writeInt(contacts.size());
+            for (ContactsProvider.Contact contact : contacts.values()) {
+                contact.writeTo(out);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not write " + file);
+        }
+    }
+
+    public boolean delete() {
+        contacts.clear();
+        timestamp = 0;
+        return !exists() || file.delete();
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    Collection<ContactsProvider.Contact> getContacts() {
+        return contacts.values();
+    }
+
+    /**
+     * Replaces the whole content of the snapshot.
+     */
+    void replace(long timestamp, Collection<ContactsProvider.Contact> all) {
+        contacts.clear();
+        for (ContactsProvider.Contact contact : all) {
+            contacts.put(contact.getContactId(), contact);
+        }
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Applies changes read from the provider since {@link #getTimestamp()}.
+     */
+    void apply(long timestamp, Collection<ContactsProvider.Contact> updated, Collection<String> deletedIds) {
+        for (String contactId : deletedIds) {
+            contacts.remove(contactId);
+        }
+        for (ContactsProvider.Contact contact : updated) {
+            contacts.put(contact.getContactId(), contact);
+        }
+        this.timestamp = timestamp;
+    }
+
+    List<String> getContactIds() {
+        return new ArrayList<>(contacts.keySet());
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
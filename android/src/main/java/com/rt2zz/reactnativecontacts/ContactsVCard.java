@@ -0,0 +1,596 @@
+package com.rt2zz.reactnativecontacts;
+
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * vCard support for moving contacts in and out of the device without going through JS.
+ * <p>
+ * {@link Writer} writes vCard 3.0, one card per contact, see ContactsProvider.Contact#writeVCard.
+ * {@link Reader} parses one card at a time into the map <code>addContact</code> accepts. It understands the
+ * N, FN, ORG, TITLE, NOTE, TEL, EMAIL, ADR, URL, IMPP and BDAY properties of vCard 2.1, 3.0 and 4.0 cards as
+ * written by common address books, including folded lines and quoted-printable values. Photos are skipped.
+ */
+public class ContactsVCard {
+    private static final int MAX_LINE_LENGTH = 75;
+
+    /*
+     * label of the contacts API to vCard TYPE parameter, labels missing here are written as they are
+     */
+    private static final Map<String, String> PHONE_TYPES = new LinkedHashMap<>();
+    private static final Map<String, String> EMAIL_TYPES = new LinkedHashMap<>();
+    private static final Map<String, String> POSTAL_TYPES = new LinkedHashMap<>();
+    /*
+     * Phone.TYPE_* to its label above; the label read from the provider is localized for display
+     */
+    private static final Map<Integer, String> PHONE_TYPE_LABELS = new HashMap<>();
+
+    static {
+        PHONE_TYPES.put("mobile", "CELL");
+        PHONE_TYPES.put("home", "HOME");
+        PHONE_TYPES.put("work", "WORK");
+        PHONE_TYPES.put("main", "MAIN");
+        PHONE_TYPES.put("work fax", "WORK,FAX");
+        PHONE_TYPES.put("home fax", "HOME,FAX");
+        PHONE_TYPES.put("pager", "PAGER");
+        PHONE_TYPES.put("work_pager", "WORK,PAGER");
+        PHONE_TYPES.put("work_mobile", "WORK,CELL");
+        PHONE_TYPES.put("other", "OTHER");
+
+        PHONE_TYPE_LABELS.put(Phone.TYPE_MOBILE, "mobile");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_HOME, "home");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_WORK, "work");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_MAIN, "main");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_FAX_WORK, "work fax");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_FAX_HOME, "home fax");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_PAGER, "pager");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_WORK_PAGER, "work_pager");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_WORK_MOBILE, "work_mobile");
+        PHONE_TYPE_LABELS.put(Phone.TYPE_OTHER, "other");
+
+        EMAIL_TYPES.put("home", "HOME");
+        EMAIL_TYPES.put("work", "WORK");
+        EMAIL_TYPES.put("mobile", "CELL");
+        EMAIL_TYPES.put("other", "OTHER");
+
+        POSTAL_TYPES.put("home", "HOME");
+        POSTAL_TYPES.put("work", "WORK");
+        POSTAL_TYPES.put("other", "OTHER");
+    }
+
+    // parameters carrying no label
+    private static final Set<String> IGNORED_TYPES = new HashSet<>(Arrays.asList("voice", "pref", "internet", "x400"));
+
+    public static class Writer implements Closeable {
+        private final java.io.Writer out;
+
+        public Writer(java.io.Writer out) {
+            this.out = out;
+        }
+
+        void beginCard() throws IOException {
+            writeLine("BEGIN:VCARD");
+            writeLine("VERSION:3.0");
+        }
+
+        void endCard() throws IOException {
+            writeLine("END:VCARD");
+        }
+
+        /**
+         * Writes the N and FN properties, which vCard 3.0 requires even when empty.
+         */
+        void name(String familyName, String givenName, String middleName, String prefix, String suffix,
+                  String formattedName) throws IOException {
+            StringBuilder line = new StringBuilder("N:");
+            String[] components = { familyName, givenName, middleName, prefix, suffix };
+            for (int i = 0; i < components.length; i++) {
+                if (i > 0) {
+                    line.append(';');
+                }
+                escape(line, components[i]);
+            }
+            writeLine(line);
+
+            line = new StringBuilder("FN:");
+            escape(line, formattedName);
+            writeLine(line);
+        }
+
+        /**
+         * Writes a property unless all of its values are empty. Several values are the components of a structured
+         * property, like N or ADR.
+         *
+         * @param types TYPE parameter, or <code>null</code>
+         */
+        void property(String name, String types, String... values) throws IOException {
+            boolean empty = true;
+            for (String value : values) {
+                empty &= isEmpty(value);
+            }
+            if (empty) {
+                return;
+            }
+
+            StringBuilder line = new StringBuilder(name);
+            if (!isEmpty(types)) {
+                line.append(";TYPE=").append(types);
+            }
+            line.append(':');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(';');
+                }
+                escape(line, values[i]);
+            }
+            writeLine(line);
+        }
+
+        /**
+         * @param type Phone.TYPE_* of the number, which decides the TYPE parameter unless it is custom
+         * @param label label of custom types, written as it is
+         */
+        void phone(int type, String label, String number) throws IOException {
+            String known = PHONE_TYPE_LABELS.get(type);
+            if (known == null && label != null && PHONE_TYPES.containsKey(label.toLowerCase(Locale.ROOT))) {
+                known = label.toLowerCase(Locale.ROOT);
+            }
+            property("TEL", typesFor(known != null ? known : label, PHONE_TYPES), number);
+        }
+
+        void email(String label, String address) throws IOException {
+            property("EMAIL", typesFor(label, EMAIL_TYPES), address);
+        }
+
+        void postalAddress(String label, String pobox, String street, String city, String region, String postCode,
+                           String country) throws IOException {
+            property("ADR", typesFor(label, POSTAL_TYPES), pobox, "", street, city, region, postCode, country);
+        }
+
+        void instantMessenger(String service, String username) throws IOException {
+            if (isEmpty(username)) {
+                return;
+            }
+            String scheme = isEmpty(service) ? "x-unknown" : service.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9+.-]", "");
+            property("IMPP", null, scheme + ":" + username);
+        }
+
+        private void writeLine(CharSequence line) throws IOException {
+            int start = 0;
+            int length = MAX_LINE_LENGTH;
+            while (line.length() - start > length) {
+                int end = start + length;
+                if (Character.isHighSurrogate(line.charAt(end - 1))) {
+                    end--;
+                }
+                out.append(line, start, end).append("\r\n ");
+                start = end;
+                // the leading space of a continuation line counts
+                length = MAX_LINE_LENGTH - 1;
+            }
+            out.append(line, start, line.length()).append("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    public static class Reader implements Closeable {
+        private final BufferedReader in;
+        private String lookahead;
+
+        public Reader(BufferedReader in) {
+            this.in = in;
+        }
+
+        /**
+         * @return the next card in the shape <code>addContact</code> accepts, or <code>null</code> at the end
+         */
+        public WritableMap next() throws IOException {
+            WritableMap contact = null;
+            WritableArray phoneNumbers = null;
+            WritableArray emailAddresses = null;
+            WritableArray postalAddresses = null;
+            WritableArray urlAddresses = null;
+            WritableArray imAddresses = null;
+            String formattedName = null;
+            boolean hasName = false;
+
+            String line;
+            while ((line = readLogicalLine()) != null) {
+                Property property = Property.parse(line);
+                if (property == null) {
+                    continue;
+                }
+                if (contact == null) {
+                    if (property.is("BEGIN") && property.value.equalsIgnoreCase("VCARD")) {
+                        contact = new JavaOnlyMap();
+                    }
+                    continue;
+                }
+
+                switch (property.name) {
+                    case "END":
+                        if (!hasName && formattedName != null) {
+                            contact.putString("givenName", formattedName);
+                        }
+                        putArray(contact, "phoneNumbers", phoneNumbers);
+                        putArray(contact, "emailAddresses", emailAddresses);
+                        putArray(contact, "postalAddresses", postalAddresses);
+                        putArray(contact, "urlAddresses", urlAddresses);
+                        putArray(contact, "imAddresses", imAddresses);
+                        return contact;
+                    case "N": {
+                        List<String> name = property.components();
+                        putComponent(contact, "familyName", name, 0);
+                        putComponent(contact, "givenName", name, 1);
+                        putComponent(contact, "middleName", name, 2);
+                        putComponent(contact, "prefix", name, 3);
+                        putComponent(contact, "suffix", name, 4);
+                        hasName = !isEmpty(property.value.replace(";", "").trim());
+                        break;
+                    }
+                    case "FN":
+                        formattedName = unescape(property.value);
+                        break;
+                    case "ORG": {
+                        List<String> organization = property.components();
+                        putComponent(contact, "company", organization, 0);
+                        putComponent(contact, "department", organization, 1);
+                        break;
+                    }
+                    case "TITLE":
+                        contact.putString("jobTitle", unescape(property.value));
+                        break;
+                    case "NOTE":
+                        contact.putString("note", unescape(property.value));
+                        break;
+                    case "TEL": {
+                        WritableMap phone = new JavaOnlyMap();
+                        phone.putString("label", labelFor(property.types, PHONE_TYPES));
+                        phone.putString("number", unescape(property.value).replaceFirst("^tel:", ""));
+                        phoneNumbers = push(phoneNumbers, phone);
+                        break;
+                    }
+                    case "EMAIL": {
+                        WritableMap email = new JavaOnlyMap();
+                        email.putString("label", labelFor(property.types, EMAIL_TYPES));
+                        email.putString("email", unescape(property.value));
+                        emailAddresses = push(emailAddresses, email);
+                        break;
+                    }
+                    case "ADR": {
+                        List<String> address = property.components();
+                        WritableMap postal = new JavaOnlyMap();
+                        postal.putString("label", labelFor(property.types, POSTAL_TYPES));
+                        postal.putString("pobox", component(address, 0));
+                        postal.putString("street", component(address, 2));
+                        postal.putString("city", component(address, 3));
+                        postal.putString("state", component(address, 4));
+                        postal.putString("postCode", component(address, 5));
+                        postal.putString("country", component(address, 6));
+                        postalAddresses = push(postalAddresses, postal);
+                        break;
+                    }
+                    case "BDAY": {
+                        WritableMap birthday = parseDate(unescape(property.value).trim());
+                        if (birthday != null) {
+                            contact.putMap("birthday", birthday);
+                        }
+                        break;
+                    }
+                    case "URL": {
+                        WritableMap url = new JavaOnlyMap();
+                        url.putString("url", unescape(property.value));
+                        urlAddresses = push(urlAddresses, url);
+                        break;
+                    }
+                    case "IMPP": {
+                        String value = unescape(property.value);
+                        int colon = value.indexOf(':');
+                        WritableMap im = new JavaOnlyMap();
+                        im.putString("service", colon > 0 ? value.substring(0, colon) : "");
+                        im.putString("username", value.substring(colon + 1));
+                        imAddresses = push(imAddresses, im);
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            }
+            return null;
+        }
+
+        /*
+         * unfolds continuation lines and quoted-printable soft line breaks
+         */
+        private String readLogicalLine() throws IOException {
+            String line = lookahead != null ? lookahead : in.readLine();
+            lookahead = null;
+            if (line == null) {
+                return null;
+            }
+
+            StringBuilder logical = new StringBuilder(line);
+            boolean quotedPrintable = line.toUpperCase(Locale.ROOT).contains("QUOTED-PRINTABLE");
+            String next;
+            while ((next = in.readLine()) != null) {
+                if (!next.isEmpty() && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+                    logical.append(next, 1, next.length());
+                } else if (quotedPrintable && logical.length() > 0 && logical.charAt(logical.length() - 1) == '=') {
+                    logical.setLength(logical.length() - 1);
+                    logical.append(next);
+                } else {
+                    lookahead = next;
+                    break;
+                }
+            }
+            return logical.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /*
+     * one content line, its value decoded but still escaped
+     */
+    private static class Property {
+        String name;
+        final Set<String> types = new HashSet<>();
+        String value;
+
+        static Property parse(String line) {
+            int colon = -1;
+            boolean quoted = false;
+            for (int i = 0; i < line.length() && colon < 0; i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ':' && !quoted) {
+                    colon = i;
+                }
+            }
+            if (colon <= 0) {
+                return null;
+            }
+
+            Property property = new Property();
+            String[] parameters = line.substring(0, colon).split(";");
+            String name = parameters[0];
+            // drop the group of grouped properties, like item1.TEL
+            property.name = name.substring(name.indexOf('.') + 1).toUpperCase(Locale.ROOT);
+            property.value = line.substring(colon + 1);
+
+            String encoding = null;
+            Charset charset = StandardCharsets.UTF_8;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i];
+                int equals = parameter.indexOf('=');
+                String key = equals > 0 ? parameter.substring(0, equals).trim().toUpperCase(Locale.ROOT) : "TYPE";
+                String raw = equals > 0 ? parameter.substring(equals + 1) : parameter;
+                String values = raw.replace("\"", "");
+                if (key.equals("TYPE")) {
+                    // a quoted value is one custom label, commas included
+                    for (String type : raw.trim().startsWith("\"") ? new String[] { values } : values.split(",")) {
+                        property.types.add(type.trim().toLowerCase(Locale.ROOT));
+                    }
+                } else if (key.equals("ENCODING")) {
+                    encoding = values.toUpperCase(Locale.ROOT);
+                } else if (key.equals("CHARSET")) {
+                    try {
+                        charset = Charset.forName(values);
+                    } catch (IllegalArgumentException e) {
+                        // keep UTF-8
+                    }
+                }
+            }
+            // vCard 2.1 allows QUOTED-PRINTABLE as a bare parameter
+            if (property.types.remove("quoted-printable")) {
+                encoding = "QUOTED-PRINTABLE";
+            }
+            if ("QUOTED-PRINTABLE".equals(encoding)) {
+                property.value = decodeQuotedPrintable(property.value, charset);
+            }
+            return property;
+        }
+
+        boolean is(String name) {
+            return this.name.equals(name);
+        }
+
+        List<String> components() {
+            List<String> components = new ArrayList<>();
+            StringBuilder component = new StringBuilder();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    component.append(c).append(value.charAt(++i));
+                } else if (c == ';') {
+                    components.add(unescape(component.toString()));
+                    component.setLength(0);
+                } else {
+                    component.append(c);
+                }
+            }
+            components.add(unescape(component.toString()));
+            return components;
+        }
+    }
+
+    static String typesFor(String label, Map<String, String> types) {
+        if (isEmpty(label)) {
+            return null;
+        }
+        String type = types.get(label);
+        return type != null ? type : "\"" + label.replaceAll("[\";]", "") + "\"";
+    }
+
+    /*
+     * the label whose types equal the given ones, a single unknown type as a custom label, "other" otherwise
+     */
+    static String labelFor(Set<String> types, Map<String, String> labels) {
+        Set<String> relevant = new HashSet<>();
+        for (String type : types) {
+            if (!type.isEmpty() && !IGNORED_TYPES.contains(type)) {
+                relevant.add(type);
+            }
+        }
+        if (relevant.equals(new HashSet<>(Arrays.asList("fax")))) {
+            relevant.add("home");
+        }
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            Set<String> known = new HashSet<>(Arrays.asList(entry.getValue().toLowerCase(Locale.ROOT).split(",")));
+            if (known.equals(relevant)) {
+                return entry.getKey();
+            }
+        }
+        if (relevant.size() == 1) {
+            return relevant.iterator().next().replaceFirst("^x-", "");
+        }
+        return "other";
+    }
+
+    static void escape(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                case ';':
+                case ',':
+                    out.append('\\').append(c);
+                    break;
+                case '\r':
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String decodeQuotedPrintable(String value, Charset charset) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '=' && i + 2 < value.length()) {
+                int high = Character.digit(value.charAt(i + 1), 16);
+                int low = Character.digit(value.charAt(i + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    bytes.write(high << 4 | low);
+                    i += 2;
+                    continue;
+                }
+            }
+            byte[] encoded = String.valueOf(c).getBytes(charset);
+            bytes.write(encoded, 0, encoded.length);
+        }
+        return new String(bytes.toByteArray(), charset);
+    }
+
+    /*
+     * a date as yyyy-mm-dd, yyyymmdd, --mm-dd or --mmdd, optionally followed by a time, into year, month and day;
+     * the year is left out when the date has none
+     */
+    static WritableMap parseDate(String value) {
+        int time = value.indexOf('T');
+        if (time >= 0) {
+            value = value.substring(0, time);
+        }
+        boolean hasYear = !value.startsWith("--");
+        String digits = value.replace("-", "");
+        if (!digits.matches(hasYear ? "\\d{8}" : "\\d{4}")) {
+            return null;
+        }
+
+        int offset = hasYear ? 4 : 0;
+        int month = Integer.parseInt(digits.substring(offset, offset + 2));
+        int day = Integer.parseInt(digits.substring(offset + 2, offset + 4));
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        WritableMap date = new JavaOnlyMap();
+        if (hasYear) {
+            date.putInt("year", Integer.parseInt(digits.substring(0, 4)));
+        }
+        date.putInt("month", month);
+        date.putInt("day", day);
+        return date;
+    }
+
+    private static void putComponent(WritableMap contact, String key, List<String> components, int index) {
+        String value = component(components, index);
+        if (!value.isEmpty()) {
+            contact.putString(key, value);
+        }
+    }
+
+    private static String component(List<String> components, int index) {
+        return index < components.size() ? components.get(index).trim() : "";
+    }
+
+    private static WritableArray push(WritableArray array, WritableMap item) {
+        if (array == null) {
+            array = new JavaOnlyArray();
+        }
+        array.pushMap(item);
+        return array;
+    }
+
+    private static void putArray(WritableMap contact, String key, WritableArray array) {
+        if (array != null) {
+            contact.putArray(key, array);
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -10,36 +10,78 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
+import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
 import android.provider.ContactsContract;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.rt2zz.reactnativecontacts.ContactFields;
+import com.rt2zz.reactnativecontacts.ContactsCache;
+import com.rt2zz.reactnativecontacts.ContactsMetrics;
+import com.rt2zz.reactnativecontacts.ContactsPhotoCache;
 import com.rt2zz.reactnativecontacts.ContactsProvider;
-
+import com.rt2zz.reactnativecontacts.ContactsRequestCoalescer;
+import com.rt2zz.reactnativecontacts.ContactsScheduler;
+import com.rt2zz.reactnativecontacts.ContactsSearchIndex;
+import com.rt2zz.reactnativecontacts.ContactsSnapshot;
+import com.rt2zz.reactnativecontacts.ContactsVCard;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class ContactsManagerImpl {
 
@@ -49,29 +91,101 @@ public class ContactsManagerImpl {
     private static final int PERMISSION_REQUEST_CODE = 888;
     private static final int REQUEST_OPEN_CONTACT_FORM = 52941;
     private static final int REQUEST_OPEN_EXISTING_CONTACT = 52942;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String REQUEST_CANCELLED = "cancelled";
+    private static final String REQUEST_TIMEOUT = "timeout";
+    // keeps bulk imports well below the 1MB binder transaction buffer, which is shared by the whole process
+    private static final int MAX_BATCH_OPERATIONS = 400;
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+    private static final int ESTIMATED_OPERATION_SIZE = 512;
+    private static final int VCARD_BUFFER_SIZE = 64 * 1024;
+    private static final String PHOTO_FORMAT_ORIGINAL = "original";
+    private static final String PHOTO_FORMAT_PNG = "png";
+    private static final String PHOTO_FORMAT_JPEG = "jpeg";
+    private static final int DEFAULT_JPEG_QUALITY = 90;
+    // the contacts provider scales display photos down to 720 pixels on most devices
+    private static final int DEFAULT_MAX_PHOTO_DIMENSION = 720;
+    private static final int DEFAULT_PHOTO_QUALITY = 80;
+    // edge of the thumbnail the contacts provider keeps next to the display photo
+    private static final int PHOTO_THUMBNAIL_SIZE = 96;
+    private static final int MAX_PHOTO_EXPORT_THREADS = 4;
+    // kept per thread so photo writes do not grow a new buffer from its default size every time
+    private static final ThreadLocal<ByteArrayOutputStream> PHOTO_BUFFER = new ThreadLocal<ByteArrayOutputStream>() {
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+            return new ByteArrayOutputStream(64 * 1024);
+        }
+    };
+    private static final String[] DATA_ROW_PROJECTION = {
+            ContactsContract.Data._ID,
+            ContactsContract.Data.MIMETYPE,
+            ContactsContract.Data.DATA1,
+            ContactsContract.Data.DATA2,
+            ContactsContract.Data.DATA3,
+            ContactsContract.Data.DATA4,
+            ContactsContract.Data.DATA5,
+            ContactsContract.Data.DATA6,
+            ContactsContract.Data.DATA7,
+            ContactsContract.Data.DATA8,
+            ContactsContract.Data.DATA9,
+            ContactsContract.Data.DATA10,
+    };
+
+    public static final String EVENT_CONTACTS_BATCH = "contactsBatch";
+    public static final String EVENT_CONTACTS_COMPLETE = "contactsComplete";
+    public static final String EVENT_SNAPSHOT_UPDATED = "contactsSnapshotUpdated";
+    public static final String EVENT_ADD_CONTACTS_PROGRESS = "addContactsProgress";
+    private static final String SNAPSHOT_FILE = "RCTContacts/contacts.snapshot";
+    private static final String PHOTO_CACHE_DIRECTORY = "RCTContacts/photos";
 
     private static Promise updateContactPromise;
     private static Promise requestPromise;
 
     private final ReactApplicationContext reactApplicationContext;
-
-    private Executor executor;
-
-
-    public ContactsManagerImpl(ReactApplicationContext reactContext, boolean useSerialExecutor) {
+    private final ContactsCache contactsCache;
+    private final ContactsSearchIndex searchIndex;
+    private final ContactsPhotoCache photoCache;
+    // shared by all calls and locked while in use, so a clear can not be undone by a revalidation saving
+    private final ContactsSnapshot snapshot;
+    private final ThreadPoolExecutor photoExecutor;
+
+    private final ContactsMetrics metrics = new ContactsMetrics();
+    private final ContactsScheduler scheduler;
+    private final ContactsRequestCoalescer coalescer;
+    // ConcurrentHashMap, not Map: Map.remove(key, value) needs API 24
+    private final ConcurrentHashMap<String, CancellationSignal> cancellationSignals = new ConcurrentHashMap<>();
+    private volatile int maxPhotoDimension = DEFAULT_MAX_PHOTO_DIMENSION;
+    private volatile int photoQuality = DEFAULT_PHOTO_QUALITY;
+
+
+    public ContactsManagerImpl(ReactApplicationContext reactContext) {
         this.reactApplicationContext = reactContext;
-        this.executor = initializeExecutor(useSerialExecutor);
+        this.scheduler = new ContactsScheduler(metrics);
+        this.coalescer = new ContactsRequestCoalescer(scheduler);
+        this.contactsCache = new ContactsCache(reactContext.getContentResolver());
+        this.searchIndex = new ContactsSearchIndex(reactContext.getContentResolver());
+        this.photoCache = new ContactsPhotoCache(reactContext.getContentResolver(),
+                new File(reactContext.getCacheDir(), PHOTO_CACHE_DIRECTORY));
+        // kept out of backups, the snapshot holds the user's address book
+        this.snapshot = new ContactsSnapshot(new File(reactContext.getNoBackupFilesDir(), SNAPSHOT_FILE));
+        int photoThreads = Math.min(MAX_PHOTO_EXPORT_THREADS, Runtime.getRuntime().availableProcessors());
+        this.photoExecutor = new ThreadPoolExecutor(photoThreads, photoThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        this.photoExecutor.allowCoreThreadTimeOut(true);
     }
 
-    private Executor initializeExecutor(boolean useSerialExecutor){
-        if(useSerialExecutor){
-            return Executors.newSingleThreadExecutor(); //AsyncTask.SERIAL_EXECUTOR
-        }
-        return Executors.newCachedThreadPool();
-    }
-
-    protected Executor getExecutor() {
-        return executor;
+    /*
+     * schedules a write to the address book; reads running before or during it are not shared with later reads
+     */
+    private void write(String method, Promise promise, final Runnable task) {
+        scheduler.write(method, promise, () -> {
+            coalescer.invalidate();
+            try {
+                task.run();
+            } finally {
+                coalescer.invalidate();
+            }
+        });
     }
 
     @NonNull
@@ -88,8 +202,48 @@ public class ContactsManagerImpl {
      * Returns all contactable records on phone
      * queries CommonDataKinds.Contactables to get phones and emails
      */
-    public void getAll(Promise promise) {
-        getAllContacts(promise);
+    public void getAll(ReadableMap options, Promise promise) {
+        ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        int timeoutMs = options != null && options.hasKey("timeoutMs") && !options.isNull("timeoutMs")
+                ? options.getInt("timeoutMs") : 0;
+        boolean partialResults = options != null && options.hasKey("partialResults")
+                && options.getBoolean("partialResults");
+        String continuation = options != null && options.hasKey("continuation") && !options.isNull("continuation")
+                ? options.getString("continuation") : null;
+        if (timeoutMs > 0 || partialResults) {
+            getAllContactsUntil(fields, timeoutMs > 0 ? SystemClock.uptimeMillis() + timeoutMs : 0,
+                    partialResults, continuation, promise);
+            return;
+        }
+        getAllContacts(fields, promise);
+    }
+
+    /*
+     * Reads all contacts unless the deadline passes first, counted from the call so time spent queued counts too.
+     * Then the read rejects with the code "timeout", or with partialResults resolves with the contacts read
+     * completely so far and a continuation to carry on from.
+     */
+    private void getAllContactsUntil(final ContactFields fields, final long deadline, final boolean partialResults,
+                                     final String continuation, final Promise promise) {
+        scheduler.read("getAll", ContactsScheduler.PRIORITY_BULK, promise, () -> {
+            ContentResolver cr = getReactApplicationContext().getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr, fields, contactsCache);
+            contactsProvider.setDeadline(deadline);
+            try {
+                if (partialResults) {
+                    promise.resolve(contactsProvider.getContactsPartial(continuation));
+                } else {
+                    promise.resolve(contactsProvider.getContacts());
+                }
+            } catch (ContactsProvider.DeadlineExceededException e) {
+                promise.reject(REQUEST_TIMEOUT, "getAll did not complete within its timeout");
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        });
     }
 
     /**
@@ -98,7 +252,7 @@ public class ContactsManagerImpl {
      * @param promise promise
      */
     public void getAllWithoutPhotos(Promise promise) {
-        getAllContacts(promise);
+        getAllContacts(ContactFields.ALL, promise);
     }
 
     /**
@@ -106,65 +260,239 @@ public class ContactsManagerImpl {
      * Uses raw URI when <code>rawUri</code> is <code>true</code>, makes assets copy
      * otherwise.
      */
-    private void getAllContacts(final Promise promise) {
-        getExecutor().execute(() -> {
+    private void getAllContacts(final ContactFields fields, final Promise promise) {
+        coalescer.read("getAll", fields.getKey(), ContactsScheduler.PRIORITY_BULK, promise, () -> {
+            Context context = getReactApplicationContext();
+            ContentResolver cr = context.getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr, fields, contactsCache);
+            return contactsProvider.getContacts();
+        });
+    }
+
+    /**
+     * Retrieves all contacts sorted by the contacts provider, along with the address book section index.
+     *
+     * @param options <code>sortBy</code>, one of <code>displayName</code> (default), <code>displayNameAlternative</code>,
+     *                <code>familyName</code> and <code>lastUpdated</code>, and optional <code>fields</code> to return
+     */
+    public void getAllSorted(final ReadableMap options, final Promise promise) {
+        final ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        final String sortBy = options != null && options.hasKey("sortBy") && !options.isNull("sortBy")
+                ? options.getString("sortBy") : ContactsProvider.SORT_DISPLAY_NAME;
+        if (!ContactsProvider.SORT_DISPLAY_NAME.equals(sortBy)
+                && !ContactsProvider.SORT_DISPLAY_NAME_ALTERNATIVE.equals(sortBy)
+                && !ContactsProvider.SORT_FAMILY_NAME.equals(sortBy)
+                && !ContactsProvider.SORT_LAST_UPDATED.equals(sortBy)) {
+            promise.reject("Unknown sortBy: " + sortBy);
+            return;
+        }
+
+        coalescer.read("getAllSorted", sortBy + ":" + fields.getKey(), ContactsScheduler.PRIORITY_BULK, promise,
+                () -> {
+                    Context context = getReactApplicationContext();
+                    ContentResolver cr = context.getContentResolver();
+                    ContactsProvider contactsProvider = new ContactsProvider(cr, fields);
+                    return contactsProvider.getContactsSorted(sortBy);
+                });
+    }
+
+    /**
+     * Retrieves one page of contacts, ordered by contact id.
+     *
+     * @param options <code>afterContactId</code> cursor from the previous page and page <code>limit</code>
+     */
+    public void getAllPaged(final ReadableMap options, final Promise promise) {
+        final String afterContactId = options != null && options.hasKey("afterContactId") && !options.isNull("afterContactId")
+                ? options.getString("afterContactId") : null;
+        final int limit = options != null && options.hasKey("limit") && !options.isNull("limit")
+                ? options.getInt("limit") : DEFAULT_PAGE_SIZE;
+
+        if (limit <= 0) {
+            promise.reject("limit must be greater than 0");
+            return;
+        }
+
+        scheduler.read("getAllPaged", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
             Context context = getReactApplicationContext();
             ContentResolver cr = context.getContentResolver();
             ContactsProvider contactsProvider = new ContactsProvider(cr);
-            WritableArray contacts = contactsProvider.getContacts();
-            promise.resolve(contacts);
+            try {
+                WritableMap page = contactsProvider.getContactsPaged(afterContactId, limit);
+                promise.resolve(page);
+            } catch (Exception e) {
+                promise.reject(e);
+            }
         });
     }
 
-    public void getCount(final Promise promise) {
-        getExecutor().execute(() -> {
+    /**
+     * Streams all contacts to JS. Batches of <code>batchSize</code> contacts are emitted as
+     * {@link #EVENT_CONTACTS_BATCH} events as soon as they are read, followed by one
+     * {@link #EVENT_CONTACTS_COMPLETE} event. The promise resolves with the number of contacts emitted.
+     *
+     * @param streamId identifier echoed in every event so callers can tell concurrent streams apart
+     * @param batchSize number of contacts per batch
+     */
+    public void getAllStreamed(final String streamId, final int batchSize, final Promise promise) {
+        if (batchSize <= 0) {
+            promise.reject("batchSize must be greater than 0");
+            return;
+        }
+
+        scheduler.read("getAllStreamed", ContactsScheduler.PRIORITY_BULK, promise, () -> {
             Context context = getReactApplicationContext();
             ContentResolver cr = context.getContentResolver();
             ContactsProvider contactsProvider = new ContactsProvider(cr);
+            WritableMap complete = Arguments.createMap();
+            complete.putString("streamId", streamId);
             try {
-                Integer contacts = contactsProvider.getContactsCount();
-                promise.resolve(contacts);
+                int count = contactsProvider.streamContacts(batchSize, contacts -> {
+                    WritableMap batch = Arguments.createMap();
+                    batch.putString("streamId", streamId);
+                    batch.putArray("contacts", contacts);
+                    sendEvent(EVENT_CONTACTS_BATCH, batch);
+                });
+                complete.putInt("count", count);
+                sendEvent(EVENT_CONTACTS_COMPLETE, complete);
+                promise.resolve(count);
             } catch (Exception e) {
+                complete.putString("error", e.toString());
+                sendEvent(EVENT_CONTACTS_COMPLETE, complete);
                 promise.reject(e);
             }
         });
     }
 
     /**
-     * Retrieves contacts matching String.
-     * Uses raw URI when <code>rawUri</code> is <code>true</code>, makes assets copy
-     * otherwise.
+     * Resolves with the contacts of the on-disk snapshot right away, then brings the snapshot up to date
+     * in the background and emits {@link #EVENT_SNAPSHOT_UPDATED} with the <code>updated</code> contacts and
+     * <code>deletedIds</code>, empty when nothing changed. Without a snapshot the contacts are read and the
+     * snapshot is written.
      *
-     * @param searchString String to match
+     * @param snapshotId passed back in the event, so the caller can tell it from those of other calls
+     */
+    public void getAllFromSnapshot(final String snapshotId, final Promise promise) {
+        scheduler.read("getAllFromSnapshot", ContactsScheduler.PRIORITY_BULK, promise, () -> {
+            Context context = getReactApplicationContext();
+            ContentResolver cr = context.getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr);
+            WritableMap changes;
+            synchronized (snapshot) {
+                try {
+                    WritableArray contacts = contactsProvider.getContactsFromSnapshot(snapshot);
+                    promise.resolve(contacts);
+                } catch (Exception e) {
+                    promise.reject(e);
+                    return;
+                }
+
+                try {
+                    changes = contactsProvider.revalidateSnapshot(snapshot);
+                } catch (Exception e) {
+                    changes = Arguments.createMap();
+                    changes.putArray("updated", Arguments.createArray());
+                    changes.putArray("deletedIds", Arguments.createArray());
+                    changes.putString("error", e.toString());
+                }
+            }
+            changes.putString("snapshotId", snapshotId);
+            sendEvent(EVENT_SNAPSHOT_UPDATED, changes);
+        });
+    }
+
+    /**
+     * Deletes the on-disk snapshot written by {@link #getAllFromSnapshot(String, Promise)}. Waits for a running
+     * revalidation, so the snapshot it saves is deleted too.
+     */
+    public void clearSnapshot(final Promise promise) {
+        scheduler.read("clearSnapshot", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
+            synchronized (snapshot) {
+                promise.resolve(snapshot.delete());
+            }
+        });
+    }
+
+    /**
+     * Retrieves contacts updated and ids of contacts deleted after <code>since</code>, along with the
+     * timestamp to pass to the next call.
+     *
+     * @param since timestamp returned by the previous call, 0 for everything
+     */
+    public void getChangesSince(final long since, final Promise promise) {
+        scheduler.read("getChangesSince", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
+            Context context = getReactApplicationContext();
+            ContentResolver cr = context.getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr);
+            try {
+                WritableMap changes = contactsProvider.getChangesSince(since);
+                promise.resolve(changes);
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves address book statistics: contact totals, Data rows per MIME type and raw contacts per account.
      */
-    public void getContactsMatchingString(final String searchString, final Promise promise) {
-        getExecutor().execute(() -> {
+    public void getStats(final Promise promise) {
+        coalescer.read("getStats", "", ContactsScheduler.PRIORITY_BULK, promise, () -> {
             Context context = getReactApplicationContext();
             ContentResolver cr = context.getContentResolver();
             ContactsProvider contactsProvider = new ContactsProvider(cr);
-            WritableArray contacts = contactsProvider.getContactsMatchingString(searchString);
-            promise.resolve(contacts);
+            return contactsProvider.getStats();
+        });
+    }
+
+    public void getCount(final Promise promise) {
+        coalescer.read("getCount", "", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
+            Context context = getReactApplicationContext();
+            ContentResolver cr = context.getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr);
+            return contactsProvider.getContactsCount();
         });
     }
 
+    /**
+     * Retrieves contacts matching String.
+     * Uses raw URI when <code>rawUri</code> is <code>true</code>, makes assets copy
+     * otherwise.
+     *
+     * @param searchString String to match
+     * @param options optional <code>fields</code> to return
+     */
+    public void getContactsMatchingString(final String searchString, final ReadableMap options, final Promise promise) {
+        final ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        readCancellable("getContactsMatchingString", options, fields, searchIndex, promise,
+                contactsProvider -> contactsProvider.getContactsMatchingString(searchString));
+    }
+
     /**
      * Retrieves contacts matching a phone number.
      * Uses raw URI when <code>rawUri</code> is <code>true</code>, makes assets copy
      * otherwise.
      *
      * @param phoneNumber phone number to match
+     * @param options optional <code>fields</code> to return, <code>exact</code> to look the number up through
+     *                PhoneLookup and <code>substringFallback</code> to search substrings when that finds nothing
      */
-    public void getContactsByPhoneNumber(final String phoneNumber, final Promise promise) {
-        getExecutor().execute(new Runnable() {
-            @Override
-            public void run() {
-                Context context = getReactApplicationContext();
-                ContentResolver cr = context.getContentResolver();
-                ContactsProvider contactsProvider = new ContactsProvider(cr);
-                WritableArray contacts = contactsProvider.getContactsByPhoneNumber(phoneNumber);
-                promise.resolve(contacts);
-            }
-        });
+    public void getContactsByPhoneNumber(final String phoneNumber, final ReadableMap options, final Promise promise) {
+        final ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        final boolean exact = options != null && options.hasKey("exact") && options.getBoolean("exact");
+        final boolean substringFallback = options != null && options.hasKey("substringFallback")
+                && options.getBoolean("substringFallback");
+        readCancellable("getContactsByPhoneNumber", options, fields, null, promise, contactsProvider -> exact
+                ? contactsProvider.getContactsByPhoneNumberExact(phoneNumber, substringFallback)
+                : contactsProvider.getContactsByPhoneNumber(phoneNumber));
     }
 
     /**
@@ -173,17 +501,70 @@ public class ContactsManagerImpl {
      * otherwise.
      *
      * @param emailAddress email address to match
+     * @param options optional <code>fields</code> to return
      */
-    public void getContactsByEmailAddress(final String emailAddress, final Promise promise) {
-        getExecutor().execute(() -> {
-            Context context = getReactApplicationContext();
-            ContentResolver cr = context.getContentResolver();
-            ContactsProvider contactsProvider = new ContactsProvider(cr);
-            WritableArray contacts = contactsProvider.getContactsByEmailAddress(emailAddress);
-            promise.resolve(contacts);
+    public void getContactsByEmailAddress(final String emailAddress, final ReadableMap options, final Promise promise) {
+        final ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        readCancellable("getContactsByEmailAddress", options, fields, null, promise,
+                contactsProvider -> contactsProvider.getContactsByEmailAddress(emailAddress));
+    }
+
+    private interface CancellableRead {
+        Object run(ContactsProvider contactsProvider);
+    }
+
+    /*
+     * Runs a search that cancelRequest can abort when options hold a requestId. A cancelled search skips its
+     * queries if it has not started yet, otherwise the running query and the reading of its rows stop, and the
+     * promise is rejected with the code "cancelled".
+     */
+    private void readCancellable(String method, ReadableMap options, final ContactFields fields, final ContactsSearchIndex index,
+                                 final Promise promise, final CancellableRead read) {
+        final String requestId = options != null && options.hasKey("requestId") && !options.isNull("requestId")
+                ? options.getString("requestId") : null;
+        final CancellationSignal cancellationSignal = requestId != null ? new CancellationSignal() : null;
+        if (requestId != null) {
+            CancellationSignal previous = cancellationSignals.put(requestId, cancellationSignal);
+            if (previous != null) {
+                // a request id is reused once the caller is done with it, the earlier search is stale
+                previous.cancel();
+            }
+        }
+
+        scheduler.read(method, ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
+            try {
+                if (cancellationSignal != null) {
+                    cancellationSignal.throwIfCanceled();
+                }
+                ContentResolver cr = getReactApplicationContext().getContentResolver();
+                ContactsProvider contactsProvider = new ContactsProvider(cr, fields, contactsCache, index);
+                contactsProvider.setCancellationSignal(cancellationSignal);
+                promise.resolve(read.run(contactsProvider));
+            } catch (OperationCanceledException e) {
+                promise.reject(REQUEST_CANCELLED, "Request " + requestId + " was cancelled");
+            } catch (Exception e) {
+                promise.reject(e);
+            } finally {
+                if (requestId != null) {
+                    cancellationSignals.remove(requestId, cancellationSignal);
+                }
+            }
         });
     }
 
+    /**
+     * Cancels the search started with <code>requestId</code> in its options. Does nothing if it already completed.
+     */
+    public void cancelRequest(String requestId) {
+        CancellationSignal cancellationSignal = requestId != null ? cancellationSignals.get(requestId) : null;
+        if (cancellationSignal != null) {
+            cancellationSignal.cancel();
+        }
+    }
+
     /**
      * Retrieves <code>thumbnailPath</code> for contact, or <code>null</code> if not
      * available.
@@ -191,7 +572,7 @@ public class ContactsManagerImpl {
      * @param contactId contact identifier, <code>recordID</code>
      */
     public void getPhotoForId(final String contactId, final Promise promise) {
-        getExecutor().execute(() -> {
+        scheduler.read("getPhotoForId", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
             Context context = getReactApplicationContext();
             ContentResolver cr = context.getContentResolver();
             ContactsProvider contactsProvider = new ContactsProvider(cr);
@@ -201,71 +582,441 @@ public class ContactsManagerImpl {
     }
 
     /**
-     * Retrieves <code>contact</code> for contact, or <code>null</code> if not
-     * available.
+     * Retrieves the path of a JPEG file holding the contact photo downsampled to <code>size</code> pixels,
+     * or <code>null</code> if the contact has no photo. Photos are served from {@link ContactsPhotoCache}.
      *
      * @param contactId contact identifier, <code>recordID</code>
+     * @param size smallest edge of the photo in pixels
+     */
+    public void getPhotoThumbnail(final String contactId, final int size, final Promise promise) {
+        if (size <= 0) {
+            promise.reject("size must be greater than 0");
+            return;
+        }
+
+        scheduler.read("getPhotoThumbnail", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
+            try {
+                promise.resolve(photoCache.getPhotoPath(contactId, size));
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the photos of several contacts at once as a map keyed by <code>recordID</code>, <code>null</code> for
+     * contacts without a photo. The photo URIs are looked up with a single query; files are produced on a bounded pool
+     * of {@link #MAX_PHOTO_EXPORT_THREADS} threads.
+     *
+     * @param contactIds contact identifiers, <code>recordID</code>
+     * @param options <code>writeToDir</code> to write the photos as <code>recordID.jpg</code> into and resolve their
+     *                paths; otherwise <code>size</code> to resolve paths from {@link ContactsPhotoCache}; photo URIs
+     *                if neither is given
      */
-    public void getContactById(final String contactId, final Promise promise) {
-        getExecutor().execute(() -> {
+    public void getPhotosForIds(final ReadableArray contactIds, final ReadableMap options, final Promise promise) {
+        final int size = options != null && options.hasKey("size") && !options.isNull("size")
+                ? options.getInt("size") : 0;
+        final String writeToDir = options != null && options.hasKey("writeToDir") && !options.isNull("writeToDir")
+                ? options.getString("writeToDir") : null;
+        if (size < 0) {
+            promise.reject("size must not be negative");
+            return;
+        }
+        Set<String> uniqueIds = new LinkedHashSet<>();
+        for (int i = 0; i < contactIds.size(); i++) {
+            String contactId = contactIds.getString(i);
+            if (contactId != null) {
+                uniqueIds.add(contactId);
+            }
+        }
+        final List<String> ids = new ArrayList<>(uniqueIds);
+
+        scheduler.read("getPhotosForIds", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
             Context context = getReactApplicationContext();
             ContentResolver cr = context.getContentResolver();
             ContactsProvider contactsProvider = new ContactsProvider(cr);
-            WritableMap contact = contactsProvider.getContactById(contactId);
-            promise.resolve(contact);
+            try {
+                Map<String, String> photoUris = contactsProvider.getPhotoUrisFromContactIds(ids);
+                Map<String, Future<String>> files = new HashMap<>();
+                if (writeToDir != null) {
+                    File directory = new File(writeToDir);
+                    if (!directory.isDirectory() && !directory.mkdirs()) {
+                        throw new IOException("Could not create " + directory);
+                    }
+                    for (final String contactId : photoUris.keySet()) {
+                        files.put(contactId, photoExecutor.submit(() -> {
+                            File file = new File(directory, contactId + ".jpg");
+                            Uri uri = ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI,
+                                    Long.parseLong(contactId));
+                            boolean written = writePhoto(cr, uri, file, PHOTO_FORMAT_JPEG, size, DEFAULT_JPEG_QUALITY,
+                                    size == 0 || size > PHOTO_THUMBNAIL_SIZE);
+                            return written ? file.getAbsolutePath() : null;
+                        }));
+                    }
+                } else if (size > 0) {
+                    for (final String contactId : photoUris.keySet()) {
+                        files.put(contactId, photoExecutor.submit(() -> photoCache.getPhotoPath(contactId, size)));
+                    }
+                }
+
+                WritableMap photos = Arguments.createMap();
+                for (String contactId : ids) {
+                    String photo = photoUris.get(contactId);
+                    Future<String> file = files.get(contactId);
+                    if (file != null) {
+                        try {
+                            photo = file.get();
+                        } catch (ExecutionException e) {
+                            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        }
+                    }
+                    if (photo != null) {
+                        photos.putString(contactId, photo);
+                    } else {
+                        photos.putNull(contactId);
+                    }
+                }
+                promise.resolve(photos);
+            } catch (Exception e) {
+                promise.reject(e);
+            }
         });
     }
 
+    /**
+     * Retrieves <code>contact</code> for contact, or <code>null</code> if not
+     * available.
+     *
+     * @param contactId contact identifier, <code>recordID</code>
+     * @param options optional <code>fields</code> to return
+     */
+    public void getContactById(final String contactId, final ReadableMap options, final Promise promise) {
+        final ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        coalescer.read("getContactById", contactId + ":" + fields.getKey(), ContactsScheduler.PRIORITY_INTERACTIVE,
+                promise, () -> {
+                    Context context = getReactApplicationContext();
+                    ContentResolver cr = context.getContentResolver();
+                    ContactsProvider contactsProvider = new ContactsProvider(cr, fields, contactsCache);
+                    return contactsProvider.getContactById(contactId);
+                });
+    }
+
 
-    public void writePhotoToPath(final String contactId, final String file, final Promise promise) {
-        getExecutor().execute(() -> {
+    /**
+     * Retrieves several contacts with one call, resolving with a map from <code>recordID</code> to contact,
+     * <code>null</code> for ids that do not exist.
+     *
+     * @param contactIds contact identifiers, <code>recordID</code>
+     * @param options optional <code>fields</code> to return
+     */
+    public void getContactsByIds(final ReadableArray contactIds, final ReadableMap options, final Promise promise) {
+        final ContactFields fields = getFields(options, promise);
+        if (fields == null) {
+            return;
+        }
+        Set<String> uniqueIds = new LinkedHashSet<>();
+        for (int i = 0; i < contactIds.size(); i++) {
+            String contactId = contactIds.getString(i);
+            if (contactId != null) {
+                uniqueIds.add(contactId);
+            }
+        }
+        final List<String> ids = new ArrayList<>(uniqueIds);
+        scheduler.read("getContactsByIds", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
             Context context = getReactApplicationContext();
             ContentResolver cr = context.getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr, fields, contactsCache);
+            try {
+                WritableMap contacts = contactsProvider.getContactsByIds(ids);
+                promise.resolve(contacts);
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        });
+    }
 
-            Uri uri = ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, Long.parseLong(contactId));
-            InputStream inputStream = ContactsContract.Contacts.openContactPhotoInputStream(cr, uri);
-            OutputStream outputStream = null;
+    /**
+     * Writes the contact photo to <code>file</code>. The photo bytes of the contacts provider are copied as they are
+     * when they already have the requested format and no size is given; otherwise the photo is decoded and encoded
+     * again. Resolves with <code>false</code> if the contact has no photo.
+     *
+     * @param options <code>format</code>, one of <code>png</code> (default), <code>jpeg</code> and
+     *                <code>original</code>; <code>size</code> to downsample to; <code>quality</code> of JPEG output;
+     *                <code>highResolution</code> to read the display photo instead of the thumbnail
+     */
+    public void writePhotoToPath(final String contactId, final String file, final ReadableMap options,
+                                 final Promise promise) {
+        final String format = options != null && options.hasKey("format") && !options.isNull("format")
+                ? options.getString("format") : PHOTO_FORMAT_PNG;
+        if (!PHOTO_FORMAT_ORIGINAL.equals(format) && !PHOTO_FORMAT_PNG.equals(format)
+                && !PHOTO_FORMAT_JPEG.equals(format)) {
+            promise.reject("Unknown format: " + format);
+            return;
+        }
+        final int size = options != null && options.hasKey("size") && !options.isNull("size")
+                ? options.getInt("size") : 0;
+        final int quality = options != null && options.hasKey("quality") && !options.isNull("quality")
+                ? options.getInt("quality") : DEFAULT_JPEG_QUALITY;
+        final boolean highResolution = options != null && options.hasKey("highResolution")
+                && options.getBoolean("highResolution");
+
+        scheduler.read("writePhotoToPath", ContactsScheduler.PRIORITY_INTERACTIVE, promise, () -> {
+            Context context = getReactApplicationContext();
+            ContentResolver cr = context.getContentResolver();
             try {
-                outputStream = new FileOutputStream(file);
-                BitmapFactory.decodeStream(inputStream).compress(Bitmap.CompressFormat.PNG, 100, outputStream);
-                promise.resolve(true);
-            } catch (FileNotFoundException e) {
+                Uri uri = ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, Long.parseLong(contactId));
+                promise.resolve(writePhoto(cr, uri, new File(file), format, size, quality, highResolution));
+            } catch (Exception e) {
                 promise.reject(e.toString());
+            }
+        });
+    }
+
+    /*
+     * Copies the provider's photo bytes unless a different format or size was asked for.
+     *
+     * @return false if the contact has no photo
+     */
+    private boolean writePhoto(ContentResolver cr, Uri uri, File file, String format, int size, int quality,
+                               boolean highResolution) throws IOException {
+        AssetFileDescriptor displayPhoto = null;
+        if (highResolution) {
+            try {
+                displayPhoto = cr.openAssetFileDescriptor(
+                        Uri.withAppendedPath(uri, ContactsContract.Contacts.Photo.DISPLAY_PHOTO), "r");
+            } catch (FileNotFoundException e) {
+                // only a thumbnail was stored
+            }
+        }
+
+        byte[] thumbnail = null;
+        if (displayPhoto == null) {
+            InputStream in = ContactsContract.Contacts.openContactPhotoInputStream(cr, uri);
+            if (in == null) {
+                return false;
+            }
+            try {
+                thumbnail = ContactsPhotoCache.readFully(in);
             } finally {
-                try {
-                    if (outputStream != null) {
-                        outputStream.close();
+                in.close();
+            }
+        }
+
+        // closing the stream closes the descriptor, so it is opened once
+        FileInputStream displayPhotoStream = displayPhoto != null ? displayPhoto.createInputStream() : null;
+        try {
+            String sourceFormat;
+            if (displayPhotoStream != null) {
+                FileChannel source = displayPhotoStream.getChannel();
+                ByteBuffer header = ByteBuffer.allocate(4);
+                source.read(header, source.position());
+                sourceFormat = getPhotoFormat(Arrays.copyOf(header.array(), header.position()));
+            } else {
+                sourceFormat = getPhotoFormat(thumbnail);
+            }
+
+            boolean reencode = size > 0 || (!PHOTO_FORMAT_ORIGINAL.equals(format) && !format.equals(sourceFormat));
+            if (!reencode) {
+                try (FileOutputStream out = new FileOutputStream(file);
+                     FileChannel target = out.getChannel()) {
+                    if (displayPhotoStream != null) {
+                        FileChannel source = displayPhotoStream.getChannel();
+                        long length = displayPhoto.getLength() >= 0
+                                ? displayPhoto.getLength() : source.size() - source.position();
+                        long position = 0;
+                        while (position < length) {
+                            long transferred = target.transferFrom(source, position, length - position);
+                            if (transferred <= 0) {
+                                break;
+                            }
+                            position += transferred;
+                        }
+                    } else {
+                        target.write(ByteBuffer.wrap(thumbnail));
                     }
-                } catch (IOException e) {
-                    e.printStackTrace();
                 }
+                return true;
             }
-            try {
-                inputStream.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+
+            byte[] data = displayPhotoStream != null ? ContactsPhotoCache.readFully(displayPhotoStream) : thumbnail;
+            Bitmap bitmap = size > 0
+                    ? ContactsPhotoCache.decodeSampled(data, size)
+                    : BitmapFactory.decodeByteArray(data, 0, data.length);
+            if (bitmap == null) {
+                throw new IOException("Could not decode the photo of " + uri);
             }
-        });
+
+            String targetFormat = PHOTO_FORMAT_ORIGINAL.equals(format) ? sourceFormat : format;
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                if (PHOTO_FORMAT_JPEG.equals(targetFormat)) {
+                    bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+                } else {
+                    bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+                }
+            } finally {
+                bitmap.recycle();
+            }
+            return true;
+        } finally {
+            if (displayPhotoStream != null) {
+                displayPhotoStream.close();
+            }
+            if (displayPhoto != null) {
+                displayPhoto.close();
+            }
+        }
+    }
+
+    /*
+     * png, jpeg or null, from the magic bytes
+     */
+    private static String getPhotoFormat(byte[] data) {
+        if (data.length >= 4 && (data[0] & 0xff) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return PHOTO_FORMAT_PNG;
+        }
+        if (data.length >= 2 && (data[0] & 0xff) == 0xff && (data[1] & 0xff) == 0xd8) {
+            return PHOTO_FORMAT_JPEG;
+        }
+        return null;
     }
 
+    /*
+     * Decodes the photo at thumbnailPath, an absolute path or an asset name, subsampled while reading so its longest
+     * edge is at most maxPhotoDimension, and turned upright according to its EXIF orientation
+     */
     private Bitmap getThumbnailBitmap(String thumbnailPath) {
-        // Thumbnail from absolute path
-        Bitmap photo = BitmapFactory.decodeFile(thumbnailPath);
+        int maxDimension = maxPhotoDimension;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
 
-        if (photo == null) {
-            // Try to find the thumbnail from assets
-            AssetManager assetManager = getReactApplicationContext().getAssets();
-            InputStream inputStream = null;
+        // Thumbnail from absolute path
+        BitmapFactory.decodeFile(thumbnailPath, options);
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            options.inSampleSize = calculatePhotoSampleSize(options.outWidth, options.outHeight, maxDimension);
+            options.inJustDecodeBounds = false;
+            Bitmap photo = BitmapFactory.decodeFile(thumbnailPath, options);
+            if (photo == null) {
+                return null;
+            }
+            int orientation = ExifInterface.ORIENTATION_UNDEFINED;
             try {
-                inputStream = assetManager.open(thumbnailPath);
-                photo = BitmapFactory.decodeStream(inputStream);
-                inputStream.close();
+                orientation = new ExifInterface(thumbnailPath)
+                        .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
             } catch (IOException e) {
-                e.printStackTrace();
+                // no readable EXIF data, keep the photo as it is
+            }
+            return transformPhoto(photo, orientation, maxDimension);
+        }
+
+        // Try to find the thumbnail from assets
+        AssetManager assetManager = getReactApplicationContext().getAssets();
+        try {
+            try (InputStream inputStream = assetManager.open(thumbnailPath)) {
+                BitmapFactory.decodeStream(inputStream, null, options);
+            }
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
+            options.inSampleSize = calculatePhotoSampleSize(options.outWidth, options.outHeight, maxDimension);
+            options.inJustDecodeBounds = false;
+            Bitmap photo;
+            try (InputStream inputStream = assetManager.open(thumbnailPath)) {
+                photo = BitmapFactory.decodeStream(inputStream, null, options);
+            }
+            if (photo == null) {
+                return null;
+            }
+            int orientation = ExifInterface.ORIENTATION_UNDEFINED;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                try (InputStream inputStream = assetManager.open(thumbnailPath)) {
+                    orientation = new ExifInterface(inputStream)
+                            .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+                }
             }
+            return transformPhoto(photo, orientation, maxDimension);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /*
+     * largest power of two subsampling keeping the longest edge at least maxDimension
+     */
+    private static int calculatePhotoSampleSize(int width, int height, int maxDimension) {
+        int inSampleSize = 1;
+        while (Math.max(width, height) / (inSampleSize * 2) >= maxDimension) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /*
+     * scales the longest edge down to maxDimension and applies the EXIF orientation in a single pass
+     */
+    private static Bitmap transformPhoto(Bitmap photo, int orientation, int maxDimension) {
+        Matrix matrix = new Matrix();
+        boolean transform = false;
+        int longestEdge = Math.max(photo.getWidth(), photo.getHeight());
+        if (longestEdge > maxDimension) {
+            float scale = (float) maxDimension / longestEdge;
+            matrix.postScale(scale, scale);
+            transform = true;
+        }
+
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+            default:
+                if (!transform) {
+                    return photo;
+                }
         }
 
-        return photo;
+        Bitmap transformed = Bitmap.createBitmap(photo, 0, 0, photo.getWidth(), photo.getHeight(), matrix, true);
+        if (transformed != photo) {
+            photo.recycle();
+        }
+        return transformed;
+    }
+
+    /*
+     * JPEG bytes of the photo at thumbnailPath for the Photo row, or null if it cannot be decoded
+     */
+    private byte[] getThumbnailBytes(String thumbnailPath) {
+        Bitmap photo = getThumbnailBitmap(thumbnailPath);
+        if (photo == null) {
+            return null;
+        }
+        try {
+            return toByteArray(photo);
+        } finally {
+            photo.recycle();
+        }
     }
 
     /*
@@ -458,13 +1209,13 @@ public class ContactsManagerImpl {
         }
 
         if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
-            Bitmap photo = getThumbnailBitmap(thumbnailPath);
+            byte[] photo = getThumbnailBytes(thumbnailPath);
 
             if (photo != null) {
                 ContentValues thumbnail = new ContentValues();
                 thumbnail.put(ContactsContract.Data.RAW_CONTACT_ID, 0);
                 thumbnail.put(ContactsContract.Data.IS_SUPER_PRIMARY, 1);
-                thumbnail.put(ContactsContract.CommonDataKinds.Photo.PHOTO, toByteArray(photo));
+                thumbnail.put(ContactsContract.CommonDataKinds.Photo.PHOTO, photo);
                 thumbnail.put(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Photo.CONTENT_ITEM_TYPE);
                 contactData.add(thumbnail);
             }
@@ -545,37 +1296,262 @@ public class ContactsManagerImpl {
                     phonesLabels[i] = mapStringToPhoneType(label);
                 }
             }
-
-            ArrayList<ContentValues> contactData = new ArrayList<>();
-            for (int i = 0; i < numOfPhones; i++) {
-                ContentValues phone = new ContentValues();
-                phone.put(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE);
-                phone.put(ContactsContract.CommonDataKinds.Phone.TYPE, phonesLabels[i]);
-                phone.put(ContactsContract.CommonDataKinds.Phone.NUMBER, phones[i]);
-                contactData.add(phone);
+
+            ArrayList<ContentValues> contactData = new ArrayList<>();
+            for (int i = 0; i < numOfPhones; i++) {
+                ContentValues phone = new ContentValues();
+                phone.put(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE);
+                phone.put(ContactsContract.CommonDataKinds.Phone.TYPE, phonesLabels[i]);
+                phone.put(ContactsContract.CommonDataKinds.Phone.NUMBER, phones[i]);
+                contactData.add(phone);
+            }
+
+            Intent intent = new Intent(Intent.ACTION_EDIT);
+            intent.setDataAndType(uri, ContactsContract.Contacts.CONTENT_ITEM_TYPE);
+            intent.putExtra("finishActivityOnSaveCompleted", true);
+            intent.putParcelableArrayListExtra(ContactsContract.Intents.Insert.DATA, contactData);
+
+            updateContactPromise = promise;
+            getReactApplicationContext().startActivityForResult(intent, REQUEST_OPEN_EXISTING_CONTACT, Bundle.EMPTY);
+
+        } catch (Exception e) {
+            promise.reject(e.toString());
+        }
+    }
+
+    /*
+     * Adds contact to phone's addressbook
+     */
+    public void addContact(final ReadableMap contact, final Promise promise) {
+        write("addContact", promise, () -> insertContact(contact, promise));
+    }
+
+    private void insertContact(ReadableMap contact, Promise promise) {
+        if (contact == null) {
+            promise.reject("New contact cannot be null.");
+            return;
+        }
+        List<ContentProviderOperation.Builder> contactOps = new ArrayList<>();
+        addContactOperations(contact, contactOps);
+        ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+        appendContactOperations(ops, contactOps);
+
+        Context ctx = getReactApplicationContext();
+        try {
+            ContentResolver cr = ctx.getContentResolver();
+            ContentProviderResult[] result = cr.applyBatch(ContactsContract.AUTHORITY, ops);
+            contactsCache.invalidate();
+            searchIndex.markDirty();
+
+            if (result != null && result.length > 0) {
+
+                String rawId = String.valueOf(ContentUris.parseId(result[0].uri));
+
+                ContactsProvider contactsProvider = new ContactsProvider(cr);
+                WritableMap newlyAddedContact = contactsProvider.getContactByRawId(rawId);
+
+                promise.resolve(newlyAddedContact); // success
+            }
+        } catch (Exception e) {
+            promise.reject(e.toString());
+        }
+    }
+
+    /**
+     * Adds many contacts to the address book. Contacts are packed into a few large batches instead of one
+     * provider transaction each, and after every batch a {@link #EVENT_ADD_CONTACTS_PROGRESS} event reports
+     * how many were added so far.
+     * <p>
+     * The promise resolves with <code>{ recordID, rawContactId }</code> for every contact, in input order.
+     * If a batch fails the contacts of earlier batches stay added and the rejection reports their number.
+     *
+     * @param importId identifier echoed in every event so callers can tell concurrent imports apart
+     */
+    public void addContacts(final String importId, final ReadableArray contacts, final Promise promise) {
+        if (contacts == null) {
+            promise.reject("New contacts cannot be null.");
+            return;
+        }
+
+        write("addContacts", promise, () -> {
+            ContentResolver cr = getReactApplicationContext().getContentResolver();
+            final int total = contacts.size();
+            final WritableArray added = Arguments.createArray();
+            try {
+                addContactsInBatches(cr, new NewContacts() {
+                    private int index;
+
+                    @Override
+                    public ReadableMap next() {
+                        if (index >= total) {
+                            return null;
+                        }
+                        ReadableMap contact = contacts.getMap(index++);
+                        if (contact == null) {
+                            throw new IllegalArgumentException("New contact cannot be null.");
+                        }
+                        return contact;
+                    }
+                }, (rawContactIds, contactIds) -> {
+                    for (String rawContactId : rawContactIds) {
+                        WritableMap contact = Arguments.createMap();
+                        contact.putString("recordID", contactIds.get(rawContactId));
+                        contact.putString("rawContactId", rawContactId);
+                        added.pushMap(contact);
+                    }
+                    sendAddContactsProgress(importId, added.size(), total);
+                });
+                promise.resolve(added);
+            } catch (Exception e) {
+                promise.reject("Added " + added.size() + " of " + total + " contacts: " + e);
+            }
+        });
+    }
+
+    /**
+     * Writes contacts to a vCard file on the executor, streaming them from the contacts provider to the file.
+     * The promise resolves with the number of contacts written.
+     *
+     * @param options optional <code>contactIds</code> to export instead of the whole address book
+     */
+    public void exportVCard(final String path, final ReadableMap options, final Promise promise) {
+        final List<String> contactIds;
+        if (options != null && options.hasKey("contactIds") && !options.isNull("contactIds")) {
+            ReadableArray ids = options.getArray("contactIds");
+            contactIds = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                contactIds.add(ids.getString(i));
+            }
+        } else {
+            contactIds = null;
+        }
+
+        scheduler.read("exportVCard", ContactsScheduler.PRIORITY_BULK, promise, () -> {
+            ContentResolver cr = getReactApplicationContext().getContentResolver();
+            ContactsProvider contactsProvider = new ContactsProvider(cr);
+            File file = new File(path);
+            try (ContactsVCard.Writer out = new ContactsVCard.Writer(new BufferedWriter(Channels.newWriter(
+                    new FileOutputStream(file).getChannel(), StandardCharsets.UTF_8.newEncoder(), VCARD_BUFFER_SIZE)))) {
+                int count = contactsProvider.exportVCard(out, contactIds);
+                promise.resolve(count);
+            } catch (Exception e) {
+                file.delete();
+                promise.reject(e.toString());
+            }
+        });
+    }
+
+    /**
+     * Adds the contacts of a vCard file, parsing one card at a time and adding them in batches like
+     * {@link #addContacts}. The promise resolves with the number of contacts added; if a batch fails the
+     * contacts of earlier batches stay added and the rejection reports their number.
+     */
+    public void importVCard(final String path, final Promise promise) {
+        write("importVCard", promise, () -> {
+            ContentResolver cr = getReactApplicationContext().getContentResolver();
+            final int[] added = { 0 };
+            try (ContactsVCard.Reader in = new ContactsVCard.Reader(new BufferedReader(
+                    new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8), VCARD_BUFFER_SIZE))) {
+                addContactsInBatches(cr, in::next, (rawContactIds, contactIds) -> added[0] += rawContactIds.size());
+                promise.resolve(added[0]);
+            } catch (Exception e) {
+                promise.reject("Added " + added[0] + " contacts: " + e);
+            }
+        });
+    }
+
+    /*
+     * contacts to add in batches, null at the end
+     */
+    private interface NewContacts {
+        ReadableMap next() throws IOException;
+    }
+
+    private interface AddedContactsListener {
+        void onBatchAdded(List<String> rawContactIds, Map<String, String> contactIds);
+    }
+
+    /*
+     * Packs the contacts into as few provider transactions as the batch limits allow.
+     */
+    private void addContactsInBatches(ContentResolver cr, NewContacts contacts, AddedContactsListener listener)
+            throws Exception {
+        ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+        List<Integer> rawContactInsertIndexes = new ArrayList<>();
+        int batchBytes = 0;
+        try {
+            ReadableMap contact;
+            List<ContentProviderOperation.Builder> contactOps = new ArrayList<>();
+            while ((contact = contacts.next()) != null) {
+                contactOps.clear();
+                int bytes = addContactOperations(contact, contactOps);
+                if (!ops.isEmpty()
+                        && (ops.size() + contactOps.size() > MAX_BATCH_OPERATIONS || batchBytes + bytes > MAX_BATCH_BYTES)) {
+                    // the contact starts the next batch, its operations get their back references once placed
+                    applyAddContactsBatch(cr, ops, rawContactInsertIndexes, listener);
+                    ops.clear();
+                    rawContactInsertIndexes.clear();
+                    batchBytes = 0;
+                }
+                rawContactInsertIndexes.add(ops.size());
+                appendContactOperations(ops, contactOps);
+                batchBytes += bytes;
+            }
+            if (!ops.isEmpty()) {
+                applyAddContactsBatch(cr, ops, rawContactInsertIndexes, listener);
             }
+        } finally {
+            contactsCache.invalidate();
+            searchIndex.markDirty();
+        }
+    }
 
-            Intent intent = new Intent(Intent.ACTION_EDIT);
-            intent.setDataAndType(uri, ContactsContract.Contacts.CONTENT_ITEM_TYPE);
-            intent.putExtra("finishActivityOnSaveCompleted", true);
-            intent.putParcelableArrayListExtra(ContactsContract.Intents.Insert.DATA, contactData);
+    private void applyAddContactsBatch(ContentResolver cr, ArrayList<ContentProviderOperation> ops,
+                                       List<Integer> rawContactInsertIndexes, AddedContactsListener listener)
+            throws Exception {
+        ContentProviderResult[] results = cr.applyBatch(ContactsContract.AUTHORITY, ops);
 
-            updateContactPromise = promise;
-            getReactApplicationContext().startActivityForResult(intent, REQUEST_OPEN_EXISTING_CONTACT, Bundle.EMPTY);
+        List<String> rawContactIds = new ArrayList<>(rawContactInsertIndexes.size());
+        for (int index : rawContactInsertIndexes) {
+            rawContactIds.add(String.valueOf(ContentUris.parseId(results[index].uri)));
+        }
 
-        } catch (Exception e) {
-            promise.reject(e.toString());
+        Map<String, String> contactIds = new HashMap<>();
+        String placeholders = TextUtils.join(",", Collections.nCopies(rawContactIds.size(), "?"));
+        Cursor cursor = cr.query(
+                ContactsContract.RawContacts.CONTENT_URI,
+                new String[] { ContactsContract.RawContacts._ID, ContactsContract.RawContacts.CONTACT_ID },
+                ContactsContract.RawContacts._ID + " IN (" + placeholders + ")",
+                rawContactIds.toArray(new String[0]),
+                null);
+        try {
+            while (cursor != null && cursor.moveToNext()) {
+                contactIds.put(cursor.getString(0), cursor.getString(1));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
         }
+
+        listener.onBatchAdded(rawContactIds, contactIds);
+    }
+
+    private void sendAddContactsProgress(String importId, int added, int total) {
+        WritableMap progress = Arguments.createMap();
+        progress.putString("importId", importId);
+        progress.putInt("added", added);
+        progress.putInt("total", total);
+        sendEvent(EVENT_ADD_CONTACTS_PROGRESS, progress);
     }
 
     /*
-     * Adds contact to phone's addressbook
+     * Appends the operations inserting one raw contact, the raw contact first. They are left unbuilt, so
+     * appendContactOperations can place them anywhere in a batch without decoding the photo again.
+     *
+     * @return approximate parcel size of the added operations in bytes
      */
-    public void addContact(ReadableMap contact, Promise promise) {
-        if (contact == null) {
-            promise.reject("New contact cannot be null.");
-            return;
-        }
+    private int addContactOperations(ReadableMap contact, List<ContentProviderOperation.Builder> ops) {
         String givenName = contact.hasKey("givenName") ? contact.getString("givenName") : null;
         String middleName = contact.hasKey("middleName") ? contact.getString("middleName") : null;
         String familyName = contact.hasKey("familyName") ? contact.getString("familyName") : null;
@@ -648,15 +1624,17 @@ public class ContactsManagerImpl {
             }
         }
 
-        ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+        int firstOperation = ops.size();
+        int size = 0;
 
+        // contacts of a bulk import are committed one by one, other transactions may run in between
         ContentProviderOperation.Builder op = ContentProviderOperation.newInsert(ContactsContract.RawContacts.CONTENT_URI)
                 .withValue(ContactsContract.RawContacts.ACCOUNT_TYPE, null)
-                .withValue(ContactsContract.RawContacts.ACCOUNT_NAME, null);
-        ops.add(op.build());
+                .withValue(ContactsContract.RawContacts.ACCOUNT_NAME, null)
+                .withYieldAllowed(true);
+        ops.add(op);
 
         op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                 .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE)
                 // .withValue(StructuredName.DISPLAY_NAME, name)
                 .withValue(ContactsContract.CommonDataKinds.StructuredName.GIVEN_NAME, givenName)
@@ -664,63 +1642,54 @@ public class ContactsManagerImpl {
                 .withValue(ContactsContract.CommonDataKinds.StructuredName.FAMILY_NAME, familyName)
                 .withValue(ContactsContract.CommonDataKinds.StructuredName.PREFIX, prefix)
                 .withValue(ContactsContract.CommonDataKinds.StructuredName.SUFFIX, suffix);
-        ops.add(op.build());
+        ops.add(op);
 
         op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                 .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Note.CONTENT_ITEM_TYPE)
                 .withValue(ContactsContract.CommonDataKinds.Note.NOTE, note);
-        ops.add(op.build());
+        ops.add(op);
 
         op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                 .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Organization.CONTENT_ITEM_TYPE)
                 .withValue(ContactsContract.CommonDataKinds.Organization.COMPANY, company)
                 .withValue(ContactsContract.CommonDataKinds.Organization.TITLE, jobTitle)
                 .withValue(ContactsContract.CommonDataKinds.Organization.DEPARTMENT, department);
-        ops.add(op.build());
-
-        // TODO not sure where to allow yields
-        op.withYieldAllowed(true);
+        ops.add(op);
 
         for (int i = 0; i < numOfPhones; i++) {
             op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                    .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                     .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE)
                     .withValue(ContactsContract.CommonDataKinds.Phone.NUMBER, phones[i])
                     .withValue(ContactsContract.CommonDataKinds.Phone.TYPE, phonesTypes[i])
                     .withValue(ContactsContract.CommonDataKinds.Phone.LABEL, phonesLabels[i]);
-            ops.add(op.build());
+            ops.add(op);
         }
 
         for (int i = 0; i < numOfUrls; i++) {
             op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                    .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                     .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Website.CONTENT_ITEM_TYPE)
                     .withValue(ContactsContract.CommonDataKinds.Website.URL, urls[i]);
-            ops.add(op.build());
+            ops.add(op);
         }
 
         for (int i = 0; i < numOfEmails; i++) {
             op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                    .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                     .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Email.CONTENT_ITEM_TYPE)
                     .withValue(ContactsContract.CommonDataKinds.Email.ADDRESS, emails[i])
                     .withValue(ContactsContract.CommonDataKinds.Email.TYPE, emailsTypes[i])
                     .withValue(ContactsContract.CommonDataKinds.Email.LABEL, emailsLabels[i]);
-            ops.add(op.build());
+            ops.add(op);
         }
 
         if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
-            Bitmap photo = getThumbnailBitmap(thumbnailPath);
+            byte[] photoBytes = getThumbnailBytes(thumbnailPath);
 
-            if (photo != null) {
+            if (photoBytes != null) {
+                size += photoBytes.length;
                 ops.add(ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                         .withValue(ContactsContract.Data.MIMETYPE,
                                 ContactsContract.CommonDataKinds.Photo.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.Photo.PHOTO, toByteArray(photo))
-                        .build());
+                        .withValue(ContactsContract.CommonDataKinds.Photo.PHOTO, photoBytes));
             }
         }
 
@@ -730,61 +1699,80 @@ public class ContactsManagerImpl {
                 ReadableMap address = postalAddresses.getMap(i);
 
                 op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                         .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredPostal.CONTENT_ITEM_TYPE)
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.TYPE,
                                 mapStringToPostalAddressType(address.getString("label")))
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.LABEL, address.getString("label"))
+                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.POBOX,
+                                address.hasKey("pobox") ? address.getString("pobox") : null)
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.STREET, address.getString("street"))
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.CITY, address.getString("city"))
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.REGION, address.getString("state"))
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.POSTCODE, address.getString("postCode"))
                         .withValue(ContactsContract.CommonDataKinds.StructuredPostal.COUNTRY, address.getString("country"));
 
-                ops.add(op.build());
+                ops.add(op);
             }
         }
 
+        ReadableMap birthday = contact.hasKey("birthday") && !contact.isNull("birthday")
+                ? contact.getMap("birthday") : null;
+        if (birthday != null && birthday.hasKey("month") && birthday.hasKey("day")) {
+            int year = birthday.hasKey("year") && !birthday.isNull("year") ? birthday.getInt("year") : 0;
+            // the format decodeEvent reads, without a year when it is unknown
+            String startDate = year > 0
+                    ? String.format(Locale.ROOT, "%04d-%02d-%02d", year, birthday.getInt("month"), birthday.getInt("day"))
+                    : String.format(Locale.ROOT, "--%02d-%02d", birthday.getInt("month"), birthday.getInt("day"));
+            ops.add(ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
+                    .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Event.CONTENT_ITEM_TYPE)
+                    .withValue(ContactsContract.CommonDataKinds.Event.TYPE, ContactsContract.CommonDataKinds.Event.TYPE_BIRTHDAY)
+                    .withValue(ContactsContract.CommonDataKinds.Event.START_DATE, startDate));
+        }
+
         for (int i = 0; i < numOfIMAddresses; i++) {
             op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                    .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
                     .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Im.CONTENT_ITEM_TYPE)
                     .withValue(ContactsContract.CommonDataKinds.Im.DATA, imAccounts[i])
                     .withValue(ContactsContract.CommonDataKinds.Im.TYPE, ContactsContract.CommonDataKinds.Im.TYPE_HOME)
                     .withValue(ContactsContract.CommonDataKinds.Im.PROTOCOL, ContactsContract.CommonDataKinds.Im.PROTOCOL_CUSTOM)
                     .withValue(ContactsContract.CommonDataKinds.Im.CUSTOM_PROTOCOL, imProtocols[i]);
-            ops.add(op.build());
+            ops.add(op);
         }
 
-        Context ctx = getReactApplicationContext();
-        try {
-            ContentResolver cr = ctx.getContentResolver();
-            ContentProviderResult[] result = cr.applyBatch(ContactsContract.AUTHORITY, ops);
-
-            if (result != null && result.length > 0) {
-
-                String rawId = String.valueOf(ContentUris.parseId(result[0].uri));
-
-                ContactsProvider contactsProvider = new ContactsProvider(cr);
-                WritableMap newlyAddedContact = contactsProvider.getContactByRawId(rawId);
+        return size + (ops.size() - firstOperation) * ESTIMATED_OPERATION_SIZE;
+    }
 
-                promise.resolve(newlyAddedContact); // success
+    /*
+     * Builds the operations of one contact at the end of the batch. Data rows refer back to the raw contact
+     * insert by its position, so several contacts can share a batch.
+     */
+    private static void appendContactOperations(ArrayList<ContentProviderOperation> ops,
+                                                List<ContentProviderOperation.Builder> contactOps) {
+        int rawContactInsertIndex = ops.size();
+        for (int i = 0; i < contactOps.size(); i++) {
+            ContentProviderOperation.Builder op = contactOps.get(i);
+            if (i > 0) {
+                op.withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, rawContactInsertIndex);
             }
-        } catch (Exception e) {
-            promise.reject(e.toString());
+            ops.add(op.build());
         }
     }
 
     public byte[] toByteArray(Bitmap bitmap) {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 80, stream);
+        ByteArrayOutputStream stream = PHOTO_BUFFER.get();
+        stream.reset();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, photoQuality, stream);
         return stream.toByteArray();
     }
 
     /*
      * Update contact to phone's addressbook
      */
-    public void updateContact(ReadableMap contact, Promise promise) {
+    public void updateContact(final ReadableMap contact, final Promise promise) {
+        write("updateContact", promise, () -> applyContactUpdate(contact, promise));
+    }
+
+    private void applyContactUpdate(ReadableMap contact, Promise promise) {
 
         String recordID = contact.hasKey("recordID") ? contact.getString("recordID") : null;
         String rawContactId = contact.hasKey("rawContactId") ? contact.getString("rawContactId") : null;
@@ -878,6 +1866,7 @@ public class ContactsManagerImpl {
         String[] postalAddressesCountry = null;
         Integer[] postalAddressesType = null;
         String[] postalAddressesLabel = null;
+        String[] postalAddressIds = null;
         if (postalAddresses != null) {
             numOfPostalAddresses = postalAddresses.size();
             postalAddressesStreet = new String[numOfPostalAddresses];
@@ -888,6 +1877,7 @@ public class ContactsManagerImpl {
             postalAddressesCountry = new String[numOfPostalAddresses];
             postalAddressesType = new Integer[numOfPostalAddresses];
             postalAddressesLabel = new String[numOfPostalAddresses];
+            postalAddressIds = new String[numOfPostalAddresses];
             for (int i = 0; i < numOfPostalAddresses; i++) {
                 String postalLabel = getValueFromKey(postalAddresses.getMap(i), "label");
                 postalAddressesStreet[i] = getValueFromKey(postalAddresses.getMap(i), "street");
@@ -898,6 +1888,7 @@ public class ContactsManagerImpl {
                 postalAddressesCountry[i] = getValueFromKey(postalAddresses.getMap(i), "country");
                 postalAddressesType[i] = mapStringToPostalAddressType(postalLabel);
                 postalAddressesLabel[i] = postalLabel;
+                postalAddressIds[i] = postalAddresses.getMap(i).hasKey("id") ? postalAddresses.getMap(i).getString("id") : null;
             }
         }
 
@@ -920,179 +1911,295 @@ public class ContactsManagerImpl {
             }
         }
 
-        ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
-
-        ContentProviderOperation.Builder op = ContentProviderOperation.newUpdate(ContactsContract.Data.CONTENT_URI)
-                .withSelection(ContactsContract.Data.CONTACT_ID + "=?", new String[] { String.valueOf(recordID) })
-                .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE)
-                .withValue(ContactsContract.CommonDataKinds.StructuredName.GIVEN_NAME, givenName)
-                .withValue(ContactsContract.CommonDataKinds.StructuredName.MIDDLE_NAME, middleName)
-                .withValue(ContactsContract.CommonDataKinds.StructuredName.FAMILY_NAME, familyName)
-                .withValue(ContactsContract.CommonDataKinds.StructuredName.PREFIX, prefix)
-                .withValue(ContactsContract.CommonDataKinds.StructuredName.SUFFIX, suffix);
-        ops.add(op.build());
+        Context ctx = getReactApplicationContext();
+        try {
+            ContentResolver cr = ctx.getContentResolver();
+            Map<String, List<DataRow>> rows = loadDataRows(cr, rawContactId);
+            ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+
+            ContentValues name = new ContentValues();
+            name.put(ContactsContract.CommonDataKinds.StructuredName.GIVEN_NAME, givenName);
+            name.put(ContactsContract.CommonDataKinds.StructuredName.MIDDLE_NAME, middleName);
+            name.put(ContactsContract.CommonDataKinds.StructuredName.FAMILY_NAME, familyName);
+            name.put(ContactsContract.CommonDataKinds.StructuredName.PREFIX, prefix);
+            name.put(ContactsContract.CommonDataKinds.StructuredName.SUFFIX, suffix);
+            appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE,
+                    rows, null, singleRow(name), false);
+
+            ContentValues organization = new ContentValues();
+            organization.put(ContactsContract.CommonDataKinds.Organization.COMPANY, company);
+            organization.put(ContactsContract.CommonDataKinds.Organization.TITLE, jobTitle);
+            organization.put(ContactsContract.CommonDataKinds.Organization.DEPARTMENT, department);
+            appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.Organization.CONTENT_ITEM_TYPE,
+                    rows, null, singleRow(organization), false);
 
-        op = ContentProviderOperation.newUpdate(ContactsContract.Data.CONTENT_URI)
-                .withSelection(ContactsContract.Data.CONTACT_ID + "=? AND " + ContactsContract.Data.MIMETYPE + " = ?",
-                        new String[] { String.valueOf(recordID), ContactsContract.CommonDataKinds.Organization.CONTENT_ITEM_TYPE })
-                .withValue(ContactsContract.CommonDataKinds.Organization.COMPANY, company)
-                .withValue(ContactsContract.CommonDataKinds.Organization.TITLE, jobTitle)
-                .withValue(ContactsContract.CommonDataKinds.Organization.DEPARTMENT, department);
-        ops.add(op.build());
+            if (phoneNumbers != null) {
+                List<ContentValues> values = new ArrayList<>(numOfPhones);
+                for (int i = 0; i < numOfPhones; i++) {
+                    ContentValues phone = new ContentValues();
+                    phone.put(ContactsContract.CommonDataKinds.Phone.NUMBER, phones[i]);
+                    phone.put(ContactsContract.CommonDataKinds.Phone.TYPE, phonesTypes[i]);
+                    phone.put(ContactsContract.CommonDataKinds.Phone.LABEL, phonesLabels[i]);
+                    values.add(phone);
+                }
+                appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE,
+                        rows, phoneIds, values, true);
+            }
 
-        op.withYieldAllowed(true);
+            if (urlAddresses != null) {
+                List<ContentValues> values = new ArrayList<>(numOfUrls);
+                for (int i = 0; i < numOfUrls; i++) {
+                    ContentValues url = new ContentValues();
+                    url.put(ContactsContract.CommonDataKinds.Website.URL, urls[i]);
+                    values.add(url);
+                }
+                // websites missing from the list are kept, as they always were
+                appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.Website.CONTENT_ITEM_TYPE,
+                        rows, urlIds, values, false);
+            }
 
-        if (phoneNumbers != null) {
-            // remove existing phoneNumbers first
-            op = ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
-                    .withSelection(
-                            ContactsContract.Data.MIMETYPE + "=? AND " + ContactsContract.Data.RAW_CONTACT_ID + " = ?",
-                            new String[] { String.valueOf(ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE),
-                                    String.valueOf(rawContactId) });
-            ops.add(op.build());
+            if (emailAddresses != null) {
+                List<ContentValues> values = new ArrayList<>(numOfEmails);
+                for (int i = 0; i < numOfEmails; i++) {
+                    ContentValues email = new ContentValues();
+                    email.put(ContactsContract.CommonDataKinds.Email.ADDRESS, emails[i]);
+                    email.put(ContactsContract.CommonDataKinds.Email.TYPE, emailsTypes[i]);
+                    email.put(ContactsContract.CommonDataKinds.Email.LABEL, emailsLabels[i]);
+                    values.add(email);
+                }
+                appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.Email.CONTENT_ITEM_TYPE,
+                        rows, emailIds, values, true);
+            }
 
-            // add passed phonenumbers
-            for (int i = 0; i < numOfPhones; i++) {
-                op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValue(ContactsContract.Data.RAW_CONTACT_ID, String.valueOf(rawContactId))
-                        .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.Phone.NUMBER, phones[i])
-                        .withValue(ContactsContract.CommonDataKinds.Phone.TYPE, phonesTypes[i])
-                        .withValue(ContactsContract.CommonDataKinds.Phone.LABEL, phonesLabels[i]);
-                ops.add(op.build());
+            List<ContentValues> notes = new ArrayList<>(1);
+            if (note != null) {
+                ContentValues noteValues = new ContentValues();
+                noteValues.put(ContactsContract.CommonDataKinds.Note.NOTE, note);
+                notes.add(noteValues);
+            }
+            appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.Note.CONTENT_ITEM_TYPE,
+                    rows, null, notes, true);
+
+            if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
+                byte[] photo = getThumbnailBytes(thumbnailPath);
+
+                if (photo != null) {
+                    List<DataRow> photos = rows.get(ContactsContract.CommonDataKinds.Photo.CONTENT_ITEM_TYPE);
+                    ContentProviderOperation.Builder op;
+                    if (photos != null) {
+                        op = ContentProviderOperation.newUpdate(ContactsContract.Data.CONTENT_URI)
+                                .withSelection(ContactsContract.Data._ID + "=?", new String[] { photos.get(0).id });
+                    } else {
+                        op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
+                                .withValue(ContactsContract.Data.RAW_CONTACT_ID, rawContactId)
+                                .withValue(ContactsContract.Data.MIMETYPE,
+                                        ContactsContract.CommonDataKinds.Photo.CONTENT_ITEM_TYPE);
+                    }
+                    ops.add(op.withValue(ContactsContract.CommonDataKinds.Photo.PHOTO, photo).build());
+                }
             }
-        }
 
-        for (int i = 0; i < numOfUrls; i++) {
-            if (urlIds[i] == null) {
-                op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValue(ContactsContract.Data.RAW_CONTACT_ID, String.valueOf(rawContactId))
-                        .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Website.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.Website.URL, urls[i]);
-            } else {
-                op = ContentProviderOperation.newUpdate(ContactsContract.Data.CONTENT_URI)
-                        .withSelection(ContactsContract.Data._ID + "=?", new String[] { String.valueOf(urlIds[i]) })
-                        .withValue(ContactsContract.CommonDataKinds.Website.URL, urls[i]);
+            if (postalAddresses != null) {
+                List<ContentValues> values = new ArrayList<>(numOfPostalAddresses);
+                for (int i = 0; i < numOfPostalAddresses; i++) {
+                    ContentValues address = new ContentValues();
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.TYPE, postalAddressesType[i]);
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.LABEL, postalAddressesLabel[i]);
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.STREET, postalAddressesStreet[i]);
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.CITY, postalAddressesCity[i]);
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.REGION, postalAddressesState[i]);
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.POSTCODE, postalAddressesPostCode[i]);
+                    address.put(ContactsContract.CommonDataKinds.StructuredPostal.COUNTRY, postalAddressesCountry[i]);
+                    values.add(address);
+                }
+                appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.StructuredPostal.CONTENT_ITEM_TYPE,
+                        rows, postalAddressIds, values, true);
             }
-            ops.add(op.build());
-        }
 
-        if (emailAddresses != null) {
-            // remove existing emails first
-            op = ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
-                    .withSelection(
-                            ContactsContract.Data.MIMETYPE + "=? AND " + ContactsContract.Data.RAW_CONTACT_ID + " = ?",
-                            new String[] { String.valueOf(ContactsContract.CommonDataKinds.Email.CONTENT_ITEM_TYPE),
-                                    String.valueOf(rawContactId) });
-            ops.add(op.build());
+            if (imAddresses != null) {
+                List<ContentValues> values = new ArrayList<>(numOfIMAddresses);
+                for (int i = 0; i < numOfIMAddresses; i++) {
+                    ContentValues im = new ContentValues();
+                    im.put(ContactsContract.CommonDataKinds.Im.DATA, imAccounts[i]);
+                    im.put(ContactsContract.CommonDataKinds.Im.TYPE, ContactsContract.CommonDataKinds.Im.TYPE_HOME);
+                    im.put(ContactsContract.CommonDataKinds.Im.PROTOCOL, ContactsContract.CommonDataKinds.Im.PROTOCOL_CUSTOM);
+                    im.put(ContactsContract.CommonDataKinds.Im.CUSTOM_PROTOCOL, imProtocols[i]);
+                    values.add(im);
+                }
+                appendDataRowOperations(ops, rawContactId, ContactsContract.CommonDataKinds.Im.CONTENT_ITEM_TYPE,
+                        rows, imAddressIds, values, true);
+            }
 
-            // add passed email addresses
-            for (int i = 0; i < numOfEmails; i++) {
-                op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValue(ContactsContract.Data.RAW_CONTACT_ID, String.valueOf(rawContactId))
-                        .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Email.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.Email.ADDRESS, emails[i])
-                        .withValue(ContactsContract.CommonDataKinds.Email.TYPE, emailsTypes[i])
-                        .withValue(ContactsContract.CommonDataKinds.Email.LABEL, emailsLabels[i]);
-                ops.add(op.build());
+            if (!ops.isEmpty()) {
+                cr.applyBatch(ContactsContract.AUTHORITY, ops);
+                contactsCache.invalidate();
+                searchIndex.markDirty();
             }
-        }
 
-        // remove existing note first
-        op = ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
-                .withSelection(
-                        ContactsContract.Data.MIMETYPE + "=? AND " + ContactsContract.Data.RAW_CONTACT_ID + " = ?",
-                        new String[] { String.valueOf(ContactsContract.CommonDataKinds.Note.CONTENT_ITEM_TYPE), String.valueOf(rawContactId) });
-        ops.add(op.build());
+            ContactsProvider contactsProvider = new ContactsProvider(cr);
+            WritableMap updatedContact = contactsProvider.getContactById(recordID);
 
-        if (note != null) {
-            op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                    .withValue(ContactsContract.Data.RAW_CONTACT_ID, String.valueOf(rawContactId))
-                    .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Note.CONTENT_ITEM_TYPE)
-                    .withValue(ContactsContract.CommonDataKinds.Note.NOTE, note);
-            ops.add(op.build());
+            promise.resolve(updatedContact); // success
+        } catch (Exception e) {
+            promise.reject(e.toString());
         }
+    }
 
-        if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
-            Bitmap photo = getThumbnailBitmap(thumbnailPath);
+    /*
+     * current Data row of a raw contact, see loadDataRows
+     */
+    private static class DataRow {
+        final String id;
+        final Map<String, String> values = new HashMap<>();
+        boolean kept;
 
-            if (photo != null) {
-                ops.add(ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
-                        .withValue(ContactsContract.Data.MIMETYPE,
-                                ContactsContract.CommonDataKinds.Photo.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.Photo.PHOTO, toByteArray(photo))
-                        .build());
+        DataRow(String id) {
+            this.id = id;
+        }
+
+        boolean hasValues(ContentValues wanted) {
+            for (String column : wanted.keySet()) {
+                // empty strings come back as missing keys from JS, the provider may hold either
+                if (!TextUtils.equals(emptyToNull(values.get(column)), emptyToNull(wanted.getAsString(column)))) {
+                    return false;
+                }
             }
+            return true;
         }
 
-        if (postalAddresses != null) {
-            // remove existing addresses
-            op = ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
-                    .withSelection(
-                            ContactsContract.Data.MIMETYPE + "=? AND " + ContactsContract.Data.RAW_CONTACT_ID + " = ?",
-                            new String[] { String.valueOf(ContactsContract.CommonDataKinds.StructuredPostal.CONTENT_ITEM_TYPE),
-                                    String.valueOf(rawContactId) });
-            ops.add(op.build());
+        private static String emptyToNull(String value) {
+            return TextUtils.isEmpty(value) ? null : value;
+        }
+    }
 
-            for (int i = 0; i < numOfPostalAddresses; i++) {
-                op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValue(ContactsContract.Data.RAW_CONTACT_ID, String.valueOf(rawContactId))
-                        .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredPostal.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.TYPE, postalAddressesType[i])
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.LABEL, postalAddressesLabel[i])
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.STREET, postalAddressesStreet[i])
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.CITY, postalAddressesCity[i])
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.REGION, postalAddressesState[i])
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.POSTCODE, postalAddressesPostCode[i])
-                        .withValue(ContactsContract.CommonDataKinds.StructuredPostal.COUNTRY, postalAddressesCountry[i]);
-                ops.add(op.build());
+    /*
+     * Reads the Data rows of a raw contact by mime type. Only the generic data columns written by updateContact
+     * are read, every kind maps its own columns onto them.
+     */
+    private Map<String, List<DataRow>> loadDataRows(ContentResolver cr, String rawContactId) {
+        Map<String, List<DataRow>> rows = new HashMap<>();
+        Cursor cursor = cr.query(
+                ContactsContract.Data.CONTENT_URI,
+                DATA_ROW_PROJECTION,
+                ContactsContract.Data.RAW_CONTACT_ID + " = ?",
+                new String[] { rawContactId },
+                null);
+        try {
+            while (cursor != null && cursor.moveToNext()) {
+                DataRow row = new DataRow(cursor.getString(0));
+                String mimeType = cursor.getString(1);
+                if (!ContactsContract.CommonDataKinds.Photo.CONTENT_ITEM_TYPE.equals(mimeType)) {
+                    for (int i = 2; i < DATA_ROW_PROJECTION.length; i++) {
+                        row.values.put(DATA_ROW_PROJECTION[i], cursor.getString(i));
+                    }
+                }
+                List<DataRow> ofType = rows.get(mimeType);
+                if (ofType == null) {
+                    ofType = new ArrayList<>();
+                    rows.put(mimeType, ofType);
+                }
+                ofType.add(row);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
             }
         }
+        return rows;
+    }
 
-        if (imAddresses != null) {
-            // remove existing IM addresses
-            op = ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
-                    .withSelection(
-                            ContactsContract.Data.MIMETYPE + "=? AND " + ContactsContract.Data.RAW_CONTACT_ID + " = ?",
-                            new String[] { String.valueOf(ContactsContract.CommonDataKinds.Im.CONTENT_ITEM_TYPE),
-                                    String.valueOf(rawContactId) });
-            ops.add(op.build());
-
-            // add passed IM addresses
-            for (int i = 0; i < numOfIMAddresses; i++) {
-                op = ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
-                        .withValue(ContactsContract.Data.RAW_CONTACT_ID, String.valueOf(rawContactId))
-                        .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.Im.CONTENT_ITEM_TYPE)
-                        .withValue(ContactsContract.CommonDataKinds.Im.DATA, imAccounts[i])
-                        .withValue(ContactsContract.CommonDataKinds.Im.TYPE, ContactsContract.CommonDataKinds.Im.TYPE_HOME)
-                        .withValue(ContactsContract.CommonDataKinds.Im.PROTOCOL, ContactsContract.CommonDataKinds.Im.PROTOCOL_CUSTOM)
-                        .withValue(ContactsContract.CommonDataKinds.Im.CUSTOM_PROTOCOL, imProtocols[i]);
-                ops.add(op.build());
+    /*
+     * Appends only the operations needed to turn the current rows of one kind into the wanted ones. A wanted item
+     * keeps the row named by its id, otherwise a row holding the same values, so unchanged items are not written.
+     *
+     * @param ids row id of every wanted item, or null
+     * @param deleteOthers whether rows no wanted item kept are deleted
+     */
+    private void appendDataRowOperations(ArrayList<ContentProviderOperation> ops, String rawContactId, String mimeType,
+                                         Map<String, List<DataRow>> rows, String[] ids, List<ContentValues> wanted,
+                                         boolean deleteOthers) {
+        List<DataRow> current = rows.get(mimeType);
+        if (current == null) {
+            current = Collections.emptyList();
+        }
+        DataRow[] kept = new DataRow[wanted.size()];
+
+        if (ids != null) {
+            for (int i = 0; i < kept.length; i++) {
+                for (DataRow row : current) {
+                    if (!row.kept && row.id.equals(ids[i])) {
+                        row.kept = true;
+                        kept[i] = row;
+                        break;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < kept.length; i++) {
+            for (DataRow row : current) {
+                if (kept[i] == null && !row.kept && row.hasValues(wanted.get(i))) {
+                    row.kept = true;
+                    kept[i] = row;
+                }
             }
         }
+        // a lone row of a single valued kind, like the name, is updated in place
+        if (!deleteOthers && ids == null && kept.length == 1 && kept[0] == null && current.size() == 1
+                && !current.get(0).kept) {
+            current.get(0).kept = true;
+            kept[0] = current.get(0);
+        }
 
-        Context ctx = getReactApplicationContext();
-        try {
-            ContentResolver cr = ctx.getContentResolver();
-            ContentProviderResult[] result = cr.applyBatch(ContactsContract.AUTHORITY, ops);
+        for (int i = 0; i < kept.length; i++) {
+            ContentValues values = wanted.get(i);
+            if (kept[i] != null) {
+                if (!kept[i].hasValues(values)) {
+                    ops.add(ContentProviderOperation.newUpdate(ContactsContract.Data.CONTENT_URI)
+                            .withSelection(ContactsContract.Data._ID + "=?", new String[] { kept[i].id })
+                            .withValues(values)
+                            .build());
+                }
+            } else if (!isEmpty(values)) {
+                ops.add(ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
+                        .withValue(ContactsContract.Data.RAW_CONTACT_ID, rawContactId)
+                        .withValue(ContactsContract.Data.MIMETYPE, mimeType)
+                        .withValues(values)
+                        .build());
+            }
+        }
 
-            if (result != null && result.length > 0) {
+        if (deleteOthers) {
+            for (DataRow row : current) {
+                if (!row.kept) {
+                    ops.add(ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
+                            .withSelection(ContactsContract.Data._ID + "=?", new String[] { row.id })
+                            .build());
+                }
+            }
+        }
+    }
 
-                ContactsProvider contactsProvider = new ContactsProvider(cr);
-                WritableMap updatedContact = contactsProvider.getContactById(recordID);
+    private static List<ContentValues> singleRow(ContentValues values) {
+        return Collections.singletonList(values);
+    }
 
-                promise.resolve(updatedContact); // success
+    private static boolean isEmpty(ContentValues values) {
+        for (String column : values.keySet()) {
+            if (!TextUtils.isEmpty(values.getAsString(column))) {
+                return false;
             }
-        } catch (Exception e) {
-            promise.reject(e.toString());
         }
+        return true;
     }
 
     /*
-     * Update contact to phone's addressbook
+     * Delete contact from phone's addressbook
      */
-    public void deleteContact(ReadableMap contact, Promise promise) {
+    public void deleteContact(final ReadableMap contact, final Promise promise) {
+        write("deleteContact", promise, () -> removeContact(contact, promise));
+    }
+
+    private void removeContact(ReadableMap contact, Promise promise) {
 
         String recordID = contact.hasKey("recordID") ? contact.getString("recordID") : null;
 
@@ -1102,6 +2209,8 @@ public class ContactsManagerImpl {
             Uri uri = Uri.withAppendedPath(ContactsContract.Contacts.CONTENT_URI, recordID);
             ContentResolver cr = ctx.getContentResolver();
             int deleted = cr.delete(uri, null, null);
+            contactsCache.invalidate();
+            searchIndex.markDirty();
 
             if (deleted > 0)
                 promise.resolve(recordID); // success
@@ -1113,6 +2222,77 @@ public class ContactsManagerImpl {
         }
     }
 
+    /**
+     * Deletes many contacts with a few batched provider transactions instead of one per contact.
+     * The promise resolves with an object telling for every record id whether a contact was deleted.
+     */
+    public void deleteContacts(final ReadableArray recordIDs, final Promise promise) {
+        if (recordIDs == null) {
+            promise.reject("recordIDs cannot be null.");
+            return;
+        }
+
+        write("deleteContacts", promise, () -> {
+            ContentResolver cr = getReactApplicationContext().getContentResolver();
+            WritableMap deleted = Arguments.createMap();
+            List<String> batchIds = new ArrayList<>();
+            ArrayList<ContentProviderOperation> ops = new ArrayList<ContentProviderOperation>();
+            boolean changed = false;
+            try {
+                for (int i = 0; i < recordIDs.size(); i++) {
+                    String recordID = recordIDs.getString(i);
+                    long id;
+                    try {
+                        id = Long.parseLong(recordID);
+                    } catch (NumberFormatException e) {
+                        if (recordID != null) {
+                            deleted.putBoolean(recordID, false);
+                        }
+                        continue;
+                    }
+
+                    batchIds.add(recordID);
+                    ops.add(ContentProviderOperation
+                            .newDelete(ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, id))
+                            .build());
+                    if (ops.size() == MAX_BATCH_OPERATIONS) {
+                        changed |= applyDeleteContactsBatch(cr, ops, batchIds, deleted);
+                    }
+                }
+                if (!ops.isEmpty()) {
+                    changed |= applyDeleteContactsBatch(cr, ops, batchIds, deleted);
+                }
+                promise.resolve(deleted);
+            } catch (Exception e) {
+                promise.reject(e.toString());
+            } finally {
+                if (changed) {
+                    contactsCache.invalidate();
+                    searchIndex.markDirty();
+                }
+            }
+        });
+    }
+
+    /*
+     * @return whether any contact was deleted
+     */
+    private boolean applyDeleteContactsBatch(ContentResolver cr, ArrayList<ContentProviderOperation> ops,
+                                             List<String> batchIds, WritableMap deleted) throws Exception {
+        ContentProviderResult[] results = cr.applyBatch(ContactsContract.AUTHORITY, ops);
+        boolean changed = false;
+        for (int i = 0; i < results.length; i++) {
+            boolean deletedContact = results[i].count != null && results[i].count > 0;
+            // a duplicate id is reported deleted if any of its deletes removed the contact
+            deleted.putBoolean(batchIds.get(i), deletedContact
+                    || (deleted.hasKey(batchIds.get(i)) && deleted.getBoolean(batchIds.get(i))));
+            changed |= deletedContact;
+        }
+        ops.clear();
+        batchIds.clear();
+        return changed;
+    }
+
     /*
      * Check permission
      */
@@ -1127,6 +2307,99 @@ public class ContactsManagerImpl {
         requestReadContactsPermission(promise);
     }
 
+    /*
+     * Enable, resize or disable the in-memory contact cache
+     */
+    public void configureCache(ReadableMap options) {
+        boolean enabled = options != null && options.hasKey("enabled") && options.getBoolean("enabled");
+        if (!enabled) {
+            contactsCache.disable();
+            return;
+        }
+        int maxBytes = options.hasKey("maxBytes") && !options.isNull("maxBytes")
+                ? options.getInt("maxBytes") : ContactsCache.DEFAULT_MAX_BYTES;
+        contactsCache.enable(Math.max(maxBytes, 1));
+    }
+
+    /*
+     * Enable or disable the in-memory name index behind getContactsMatchingString
+     */
+    public void configureSearchIndex(ReadableMap options) {
+        boolean enabled = options != null && options.hasKey("enabled") && options.getBoolean("enabled");
+        if (enabled) {
+            searchIndex.enable();
+        } else {
+            searchIndex.disable();
+        }
+    }
+
+    /*
+     * Change the disk budget of the photo thumbnail cache
+     */
+    public void configurePhotoCache(ReadableMap options) {
+        long maxDiskBytes = options != null && options.hasKey("maxDiskBytes") && !options.isNull("maxDiskBytes")
+                ? (long) options.getDouble("maxDiskBytes") : ContactsPhotoCache.DEFAULT_MAX_DISK_BYTES;
+        scheduler.read("configurePhotoCache", ContactsScheduler.PRIORITY_INTERACTIVE, null,
+                () -> photoCache.configure(maxDiskBytes));
+    }
+
+    /*
+     * Change how photos passed as thumbnailPath to addContact and updateContact are stored
+     */
+    public void configurePhotoStorage(ReadableMap options) {
+        maxPhotoDimension = options != null && options.hasKey("maxDimension") && !options.isNull("maxDimension")
+                ? Math.max(options.getInt("maxDimension"), 1) : DEFAULT_MAX_PHOTO_DIMENSION;
+        photoQuality = options != null && options.hasKey("quality") && !options.isNull("quality")
+                ? Math.min(Math.max(options.getInt("quality"), 0), 100) : DEFAULT_PHOTO_QUALITY;
+    }
+
+    /*
+     * Resize the read pool of the scheduler
+     */
+    public void configureScheduler(ReadableMap options) {
+        int readThreads = options != null && options.hasKey("readThreads") && !options.isNull("readThreads")
+                ? options.getInt("readThreads") : ContactsScheduler.getDefaultReadThreads();
+        int bulkThreads = options != null && options.hasKey("bulkThreads") && !options.isNull("bulkThreads")
+                ? options.getInt("bulkThreads") : ContactsScheduler.getDefaultBulkThreads(readThreads);
+        scheduler.configure(readThreads, bulkThreads);
+    }
+
+    /**
+     * Resolves with the queue depths, task counts and wait times of the scheduler lanes, and with the number of reads
+     * started and of identical reads that joined one already running as <code>coalescing</code>.
+     */
+    public void getSchedulerStats(Promise promise) {
+        WritableMap stats = scheduler.getStats();
+        stats.putMap("coalescing", coalescer.getStats());
+        promise.resolve(stats);
+    }
+
+    /**
+     * Resolves with latency histograms of every method run on the scheduler since the last reset: the time queued,
+     * the total run time and the parts of it spent querying the provider, reading cursors and building the result,
+     * with the rows read, the contacts returned and their estimated size.
+     */
+    public void getMetrics(Promise promise) {
+        promise.resolve(metrics.toMap());
+    }
+
+    /*
+     * Clear the histograms returned by getMetrics
+     */
+    public void resetMetrics() {
+        metrics.reset();
+    }
+
+    /*
+     * Release resources held by the module
+     */
+    public void invalidate() {
+        contactsCache.disable();
+        searchIndex.disable();
+        photoExecutor.shutdown();
+        scheduler.shutdown();
+    }
+
     /*
      * Enable note usage
      */
@@ -1176,6 +2449,26 @@ public class ContactsManagerImpl {
         requestPromise = null;
     }
 
+    private void sendEvent(String eventName, WritableMap params) {
+        getReactApplicationContext()
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(eventName, params);
+    }
+
+    /*
+     * Get the fields requested in read options, rejects the promise and returns null when they are invalid
+     */
+    @Nullable
+    private ContactFields getFields(ReadableMap options, Promise promise) {
+        try {
+            return ContactFields.fromArray(options != null && options.hasKey("fields") && !options.isNull("fields")
+                    ? options.getArray("fields") : null);
+        } catch (IllegalArgumentException e) {
+            promise.reject(e.getMessage());
+            return null;
+        }
+    }
+
     /*
      * Get string value from key
      */
@@ -51,7 +51,7 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
 
     public ContactsManager(ReactApplicationContext reactContext) {
         super(reactContext);
-        contactsManagerImpl = new ContactsManagerImpl(reactContext, true);
+        contactsManagerImpl = new ContactsManagerImpl(reactContext);
         reactContext.addActivityEventListener(this);
     }
 
@@ -60,8 +60,8 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
      * queries CommonDataKinds.Contactables to get phones and emails
      */
     @ReactMethod
-    public void getAll(Promise promise) {
-        contactsManagerImpl.getAll(promise);
+    public void getAll(ReadableMap options, Promise promise) {
+        contactsManagerImpl.getAll(options, promise);
     }
 
     /**
@@ -74,22 +74,104 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
         contactsManagerImpl.getAllWithoutPhotos(promise);
     }
 
+    /**
+     * Retrieves all contacts sorted by the contacts provider, with the address book section index.
+     *
+     * @param options <code>sortBy</code> and <code>fields</code>
+     */
+    @ReactMethod
+    public void getAllSorted(ReadableMap options, Promise promise) {
+        contactsManagerImpl.getAllSorted(options, promise);
+    }
+
+    /**
+     * Retrieves one page of contacts, ordered by contact id.
+     *
+     * @param options <code>afterContactId</code> cursor from the previous page and page <code>limit</code>
+     */
+    @ReactMethod
+    public void getAllPaged(ReadableMap options, Promise promise) {
+        contactsManagerImpl.getAllPaged(options, promise);
+    }
+
+    /**
+     * Streams all contacts to JS in batches over the device event emitter.
+     *
+     * @param streamId identifier echoed in every event
+     * @param batchSize number of contacts per batch
+     */
+    @ReactMethod
+    public void getAllStreamed(String streamId, double batchSize, Promise promise) {
+        contactsManagerImpl.getAllStreamed(streamId, (int) batchSize, promise);
+    }
+
+    /**
+     * Serves contacts from the on-disk snapshot and revalidates it in the background.
+     */
+    @ReactMethod
+    public void getAllFromSnapshot(String snapshotId, Promise promise) {
+        contactsManagerImpl.getAllFromSnapshot(snapshotId, promise);
+    }
+
+    /**
+     * Deletes the on-disk snapshot.
+     */
+    @ReactMethod
+    public void clearSnapshot(Promise promise) {
+        contactsManagerImpl.clearSnapshot(promise);
+    }
+
+    /**
+     * Retrieves contacts changed and deleted after a timestamp returned by an earlier call.
+     *
+     * @param since timestamp in milliseconds, 0 for everything
+     */
+    @ReactMethod
+    public void getChangesSince(double since, Promise promise) {
+        contactsManagerImpl.getChangesSince((long) since, promise);
+    }
+
+    /*
+     * Required for NativeEventEmitter
+     */
+    @ReactMethod
+    public void addListener(String eventName) {
+        // Keep: required for RN built in Event Emitter Calls
+    }
+
+    /*
+     * Required for NativeEventEmitter
+     */
+    @ReactMethod
+    public void removeListeners(double count) {
+        // Keep: required for RN built in Event Emitter Calls
+    }
+
 
     @ReactMethod
     public void getCount(final Promise promise) {
         contactsManagerImpl.getCount(promise);
     }
 
+    /**
+     * Retrieves address book statistics.
+     */
+    @ReactMethod
+    public void getStats(final Promise promise) {
+        contactsManagerImpl.getStats(promise);
+    }
+
     /**
      * Retrieves contacts matching String.
      * Uses raw URI when <code>rawUri</code> is <code>true</code>, makes assets copy
      * otherwise.
      *
      * @param searchString String to match
+     * @param options optional <code>fields</code> to return
      */
     @ReactMethod
-    public void getContactsMatchingString(final String searchString, final Promise promise) {
-        contactsManagerImpl.getContactsMatchingString(searchString, promise);
+    public void getContactsMatchingString(final String searchString, final ReadableMap options, final Promise promise) {
+        contactsManagerImpl.getContactsMatchingString(searchString, options, promise);
     }
 
     /**
@@ -98,10 +180,11 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
      * otherwise.
      *
      * @param phoneNumber phone number to match
+     * @param options optional <code>fields</code> to return
      */
     @ReactMethod
-    public void getContactsByPhoneNumber(final String phoneNumber, final Promise promise) {
-        contactsManagerImpl.getContactsByPhoneNumber(phoneNumber, promise);
+    public void getContactsByPhoneNumber(final String phoneNumber, final ReadableMap options, final Promise promise) {
+        contactsManagerImpl.getContactsByPhoneNumber(phoneNumber, options, promise);
     }
 
     /**
@@ -110,10 +193,11 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
      * otherwise.
      *
      * @param emailAddress email address to match
+     * @param options optional <code>fields</code> to return
      */
     @ReactMethod
-    public void getContactsByEmailAddress(final String emailAddress, final Promise promise) {
-        contactsManagerImpl.getContactsByEmailAddress(emailAddress, promise);
+    public void getContactsByEmailAddress(final String emailAddress, final ReadableMap options, final Promise promise) {
+        contactsManagerImpl.getContactsByEmailAddress(emailAddress, options, promise);
     }
 
     /**
@@ -127,20 +211,55 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
         contactsManagerImpl.getPhotoForId(contactId, promise);
     }
 
+    /**
+     * Retrieves the path of a cached JPEG of the contact photo downsampled to <code>size</code> pixels.
+     *
+     * @param contactId contact identifier, <code>recordID</code>
+     * @param size smallest edge of the photo in pixels
+     */
+    @ReactMethod
+    public void getPhotoThumbnail(String contactId, double size, Promise promise) {
+        contactsManagerImpl.getPhotoThumbnail(contactId, (int) size, promise);
+    }
+
+    /**
+     * Retrieves the photos of several contacts at once as a map keyed by <code>recordID</code>.
+     *
+     * @param contactIds contact identifiers, <code>recordID</code>
+     * @param options optional <code>size</code> and <code>writeToDir</code>
+     */
+    @ReactMethod
+    public void getPhotosForIds(final ReadableArray contactIds, final ReadableMap options, final Promise promise) {
+        contactsManagerImpl.getPhotosForIds(contactIds, options, promise);
+    }
+
     /**
      * Retrieves <code>contact</code> for contact, or <code>null</code> if not
      * available.
      *
      * @param contactId contact identifier, <code>recordID</code>
+     * @param options optional <code>fields</code> to return
+     */
+    @ReactMethod
+    public void getContactById(final String contactId, final ReadableMap options, final Promise promise) {
+        contactsManagerImpl.getContactById(contactId, options, promise);
+    }
+
+    /**
+     * Retrieves several contacts at once as a map keyed by <code>recordID</code>.
+     *
+     * @param contactIds contact identifiers, <code>recordID</code>
+     * @param options optional <code>fields</code> to return
      */
     @ReactMethod
-    public void getContactById(final String contactId, final Promise promise) {
-        contactsManagerImpl.getContactById(contactId, promise);
+    public void getContactsByIds(final ReadableArray contactIds, final ReadableMap options, final Promise promise) {
+        contactsManagerImpl.getContactsByIds(contactIds, options, promise);
     }
 
     @ReactMethod
-    public void writePhotoToPath(final String contactId, final String file, final Promise promise) {
-        contactsManagerImpl.writePhotoToPath(contactId, file, promise);
+    public void writePhotoToPath(final String contactId, final String file, final ReadableMap options,
+                                 final Promise promise) {
+        contactsManagerImpl.writePhotoToPath(contactId, file, options, promise);
     }
 
     /*
@@ -183,6 +302,38 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
         contactsManagerImpl.addContact(contact, promise);
     }
 
+    /**
+     * Adds many contacts in a few batched provider transactions, reporting progress over the device event emitter.
+     *
+     * @param importId identifier echoed in every event
+     * @param contacts contacts to add
+     */
+    @ReactMethod
+    public void addContacts(String importId, ReadableArray contacts, Promise promise) {
+        contactsManagerImpl.addContacts(importId, contacts, promise);
+    }
+
+    /**
+     * Writes contacts to a vCard file without passing them through JS.
+     *
+     * @param path file to write
+     * @param options optional <code>contactIds</code> to export
+     */
+    @ReactMethod
+    public void exportVCard(String path, ReadableMap options, Promise promise) {
+        contactsManagerImpl.exportVCard(path, options, promise);
+    }
+
+    /**
+     * Adds the contacts of a vCard file without passing them through JS.
+     *
+     * @param path file to read
+     */
+    @ReactMethod
+    public void importVCard(String path, Promise promise) {
+        contactsManagerImpl.importVCard(path, promise);
+    }
+
     /*
      * Update contact to phone's addressbook
      */
@@ -199,6 +350,16 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
         contactsManagerImpl.deleteContact(contact, promise);
     }
 
+    /**
+     * Deletes many contacts in a few batched provider transactions.
+     *
+     * @param recordIDs ids of the contacts to delete
+     */
+    @ReactMethod
+    public void deleteContacts(ReadableArray recordIDs, Promise promise) {
+        contactsManagerImpl.deleteContacts(recordIDs, promise);
+    }
+
     /*
      * Check permission
      */
@@ -215,6 +376,84 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
         contactsManagerImpl.requestPermission(promise);
     }
 
+    /*
+     * Enable, resize or disable the in-memory contact cache
+     */
+    @ReactMethod
+    public void configureCache(ReadableMap options) {
+        contactsManagerImpl.configureCache(options);
+    }
+
+    /*
+     * Enable or disable the in-memory search index behind getContactsMatchingString
+     */
+    @ReactMethod
+    public void configureSearchIndex(ReadableMap options) {
+        contactsManagerImpl.configureSearchIndex(options);
+    }
+
+    /**
+     * Changes the disk budget of the photo thumbnail cache.
+     *
+     * @param options <code>maxDiskBytes</code>
+     */
+    @ReactMethod
+    public void configurePhotoCache(ReadableMap options) {
+        contactsManagerImpl.configurePhotoCache(options);
+    }
+
+    /**
+     * Changes the size and quality photos passed as <code>thumbnailPath</code> are stored with.
+     *
+     * @param options <code>maxDimension</code> and <code>quality</code>
+     */
+    @ReactMethod
+    public void configurePhotoStorage(ReadableMap options) {
+        contactsManagerImpl.configurePhotoStorage(options);
+    }
+
+    /*
+     * Cancels the search started with requestId in its options
+     */
+    @ReactMethod
+    public void cancelRequest(String requestId) {
+        contactsManagerImpl.cancelRequest(requestId);
+    }
+
+    /**
+     * Resizes the read pool of the scheduler.
+     *
+     * @param options <code>readThreads</code> and <code>bulkThreads</code>
+     */
+    @ReactMethod
+    public void configureScheduler(ReadableMap options) {
+        contactsManagerImpl.configureScheduler(options);
+    }
+
+    /*
+     * Returns queue depths, task counts and wait times of the scheduler lanes
+     */
+    @ReactMethod
+    public void getSchedulerStats(Promise promise) {
+        contactsManagerImpl.getSchedulerStats(promise);
+    }
+
+    /*
+     * Returns latency, row and size histograms of every method since the last reset
+     */
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        contactsManagerImpl.getMetrics(promise);
+    }
+
+    /*
+     * Clears the histograms returned by getMetrics
+     */
+    @ReactMethod
+    public void resetMetrics() {
+        contactsManagerImpl.resetMetrics();
+    }
+
     /*
      * Enable note usage
      */
@@ -257,6 +496,12 @@ public class ContactsManager extends ReactContextBaseJavaModule implements Activ
         return ContactsProvider.NAME;
     }
 
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        contactsManagerImpl.invalidate();
+    }
+
     /*
      * Required for ActivityEventListener
      */
@@ -0,0 +1,156 @@
+package com.rt2zz.reactnativecontacts;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContactsSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadsWhatWasSaved() throws IOException {
+        File file = new File(folder.getRoot(), "contacts.snapshot");
+        List<ContactsProvider.Contact> contacts = Arrays.asList(
+                contact("1", "Ada Lovelace", "+44 20 7946 0000"),
+                contact("2", "\u00c9mile Zola", null));
+        ContactsSnapshot written = new ContactsSnapshot(file);
+        written.replace(1234567890123L, contacts);
+        written.save();
+
+        ContactsSnapshot read = new ContactsSnapshot(file);
+        assertTrue(read.load());
+        assertEquals(1234567890123L, read.getTimestamp());
+        assertEquals(Arrays.asList("1", "2"), read.getContactIds());
+        List<ContactsProvider.Contact> loaded = new ArrayList<>(read.getContacts());
+        for (int i = 0; i < contacts.size(); i++) {
+            assertArrayEquals(bytesOf(contacts.get(i)), bytesOf(loaded.get(i)));
+        }
+    }
+
+    @Test
+    public void rejectsAnotherMagic() throws IOException {
+        File file = saveOne();
+        overwriteInt(file, 0, 0x12345678);
+        assertFalse(new ContactsSnapshot(file).load());
+    }
+
+    @Test
+    public void rejectsAnotherFormatVersion() throws IOException {
+        File file = saveOne();
+        overwriteInt(file, 4, 2);
+        assertFalse(new ContactsSnapshot(file).load());
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        File file = saveOne();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        ContactsSnapshot snapshot = new ContactsSnapshot(file);
+        assertFalse(snapshot.load());
+        assertTrue(snapshot.getContactIds().isEmpty());
+        assertEquals(0, snapshot.getTimestamp());
+    }
+
+    @Test
+    public void rejectsMissingFile() throws IOException {
+        assertFalse(new ContactsSnapshot(new File(folder.getRoot(), "missing.snapshot")).load());
+    }
+
+    @Test
+    public void deleteRemovesFile() throws IOException {
+        File file = saveOne();
+        ContactsSnapshot snapshot = new ContactsSnapshot(file);
+        assertTrue(snapshot.delete());
+        assertFalse(file.exists());
+        assertFalse(snapshot.load());
+    }
+
+    private File saveOne() throws IOException {
+        File file = folder.newFile();
+        ContactsSnapshot snapshot = new ContactsSnapshot(file);
+        snapshot.replace(42, Arrays.asList(contact("1", "Ada Lovelace", "+44 20 7946 0000")));
+        snapshot.save();
+        return file;
+    }
+
+    private static void overwriteInt(File file, long position, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            raf.writeInt(value);
+        }
+    }
+
+    private static byte[] bytesOf(ContactsProvider.Contact contact) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            contact.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /*
+     * Contacts are only built from the provider or a snapshot, so this writes the record in the snapshot
+     * format and reads it back.
+     */
+    private static ContactsProvider.Contact contact(String contactId, String displayName, String phone)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            ContactsSnapshot.writeString(out, contactId);
+            ContactsSnapshot.writeString(out, "raw" + contactId);
+            ContactsSnapshot.writeString(out, displayName);
+            String[] names = displayName.split(" ");
+            ContactsSnapshot.writeString(out, names[0]);
+            ContactsSnapshot.writeString(out, "");
+            ContactsSnapshot.writeString(out, names[names.length - 1]);
+            for (int i = 0; i < 6; i++) {
+                // prefix, suffix, company, job title, department, note
+                ContactsSnapshot.writeString(out, i == 5 ? "note of " + contactId : "");
+            }
+            ContactsSnapshot.writeString(out, null);
+            out.writeBoolean(false);
+            out.writeBoolean(true);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(1);
+            ContactsSnapshot.writeString(out, "home");
+            ContactsSnapshot.writeString(out, contactId + "@example.com");
+            ContactsSnapshot.writeString(out, "e" + contactId);
+            out.writeInt(phone != null ? 1 : 0);
+            if (phone != null) {
+                ContactsSnapshot.writeString(out, "mobile");
+                ContactsSnapshot.writeString(out, phone);
+                ContactsSnapshot.writeString(out, "p" + contactId);
+            }
+            out.writeInt(1);
+            out.writeInt(2);
+            ContactsSnapshot.writeString(out, "label");
+            ContactsSnapshot.writeString(out, "work");
+            ContactsSnapshot.writeString(out, "city");
+            ContactsSnapshot.writeString(out, "London");
+            out.writeBoolean(true);
+            out.writeInt(1815);
+            out.writeInt(12);
+            out.writeInt(10);
+        }
+        return ContactsProvider.Contact.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+}
@@ -1,9 +1,44 @@
-export function getAll(): Promise<Contact[]>;
+export function getAll(
+  options: GetAllOptions & { partialResults: true }
+): Promise<PartialContacts>;
+export function getAll(options?: GetAllOptions): Promise<Contact[]>;
 export function getAllWithoutPhotos(): Promise<Contact[]>;
-export function getContactById(contactId: string): Promise<Contact | null>;
+export function getAllSorted(options?: SortOptions): Promise<SortedContacts>;
+export function getAllPaged(options?: PageOptions): Promise<ContactsPage>;
+export function getAllStreamed(
+  onBatch: (contacts: Contact[]) => void,
+  batchSize?: number
+): Promise<number>;
+export function getChangesSince(since: number): Promise<ContactChanges>;
+export function getAllFromSnapshot(
+  onUpdate?: (changes: SnapshotChanges) => void
+): Promise<Contact[]>;
+export function clearSnapshot(): Promise<boolean>;
+export function getContactById(
+  contactId: string,
+  options?: ReadOptions
+): Promise<Contact | null>;
 export function getCount(): Promise<number>;
+export function getStats(): Promise<ContactsStats>;
 export function getPhotoForId(contactId: string): Promise<string>;
+export function getPhotoThumbnail(
+  contactId: string,
+  size: number
+): Promise<string | null>;
+export function getPhotosForIds(
+  contactIds: string[],
+  options?: PhotosOptions
+): Promise<{ [contactId: string]: string | null }>;
 export function addContact(contact: Partial<Contact>): Promise<Contact>;
+export function addContacts(
+  contacts: Partial<Contact>[],
+  onProgress?: (progress: AddContactsProgress) => void
+): Promise<AddedContact[]>;
+export function exportVCard(
+  path: string,
+  options?: VCardExportOptions
+): Promise<number>;
+export function importVCard(path: string): Promise<number>;
 export function openContactForm(
   contact: Partial<Contact>
 ): Promise<Contact | null>;
@@ -16,12 +51,24 @@ export function updateContact(
   contact: Partial<Contact> & { recordID: string }
 ): Promise<void>;
 export function deleteContact(contact: Contact): Promise<void>;
-export function getContactsMatchingString(str: string): Promise<Contact[]>;
+export function deleteContacts(
+  recordIDs: string[]
+): Promise<{ [recordID: string]: boolean }>;
+export function getContactsByIds(
+  contactIds: string[],
+  options?: ReadOptions
+): Promise<{ [contactId: string]: Contact | null }>;
+export function getContactsMatchingString(
+  str: string,
+  options?: SearchOptions
+): Promise<Contact[]>;
 export function getContactsByPhoneNumber(
-  phoneNumber: string
+  phoneNumber: string,
+  options?: PhoneNumberOptions
 ): Promise<Contact[]>;
 export function getContactsByEmailAddress(
-  emailAddress: string
+  emailAddress: string,
+  options?: SearchOptions
 ): Promise<Contact[]>;
 export function checkPermission(): Promise<
   "authorized" | "denied" | "undefined" | "limited"
@@ -31,9 +78,19 @@ export function requestPermission(): Promise<
 >;
 export function writePhotoToPath(
   contactId: string,
-  file: string
+  file: string,
+  options?: WritePhotoOptions
 ): Promise<boolean>;
 export function iosEnableNotesUsage(enabled: boolean): void;
+export function configureCache(options: CacheOptions): void;
+export function configureSearchIndex(options: SearchIndexOptions): void;
+export function configurePhotoCache(options: PhotoCacheOptions): void;
+export function configurePhotoStorage(options: PhotoStorageOptions): void;
+export function cancelRequest(requestId: string): void;
+export function configureScheduler(options: SchedulerOptions): void;
+export function getSchedulerStats(): Promise<SchedulerStats>;
+export function getMetrics(): Promise<Metrics>;
+export function resetMetrics(): void;
 
 export function getGroups(): Promise<Group[]>;
 export function getGroup(identifier: string): Promise<Group | null>;
@@ -52,6 +109,195 @@ export function removeContactsFromGroup(
   groupIdentifier: string,
   contactIdentifiers: string[]
 ): Promise<boolean>;
+export type ContactField =
+  | "recordID"
+  | "rawContactId"
+  | "displayName"
+  | "givenName"
+  | "middleName"
+  | "familyName"
+  | "prefix"
+  | "suffix"
+  | "hasThumbnail"
+  | "thumbnailPath"
+  | "isStarred"
+  | "phoneNumbers"
+  | "emailAddresses"
+  | "company"
+  | "jobTitle"
+  | "department"
+  | "postalAddresses"
+  | "note"
+  | "urlAddresses"
+  | "imAddresses"
+  | "birthday";
+
+export interface ReadOptions {
+  fields?: ContactField[];
+}
+
+export interface GetAllOptions extends ReadOptions {
+  timeoutMs?: number;
+  partialResults?: boolean;
+  continuation?: string | null;
+}
+
+export interface PartialContacts {
+  contacts: Contact[];
+  continuation: string | null;
+}
+
+export interface SearchOptions extends ReadOptions {
+  requestId?: string;
+}
+
+export interface PhoneNumberOptions extends SearchOptions {
+  exact?: boolean;
+  substringFallback?: boolean;
+}
+
+export type SortBy =
+  | "displayName"
+  | "displayNameAlternative"
+  | "familyName"
+  | "lastUpdated";
+
+export interface SortOptions extends ReadOptions {
+  sortBy?: SortBy;
+}
+
+export interface Section {
+  title: string;
+  offset: number;
+  count: number;
+}
+
+export interface SortedContacts {
+  contacts: Contact[];
+  sections: Section[];
+}
+
+export interface AddedContact {
+  recordID: string;
+  rawContactId: string;
+}
+
+export interface AddContactsProgress {
+  added: number;
+  total: number;
+}
+
+export interface VCardExportOptions {
+  contactIds?: string[];
+}
+
+export interface ContactsPage {
+  contacts: Contact[];
+  nextCursor: string | null;
+}
+
+export interface ContactsStats {
+  total: number;
+  starred: number;
+  withPhoneNumber: number;
+  byMimeType: { [mimeType: string]: number };
+  byAccount: { type: string | null; name: string | null; count: number }[];
+}
+
+export interface ContactChanges {
+  updated: Contact[];
+  deletedIds: string[];
+  timestamp: number;
+}
+
+export interface SnapshotChanges {
+  updated: Contact[];
+  deletedIds: string[];
+}
+
+export interface CacheOptions {
+  enabled: boolean;
+  maxBytes?: number;
+}
+
+export interface PhotosOptions {
+  size?: number;
+  writeToDir?: string;
+}
+
+export interface WritePhotoOptions {
+  format?: "png" | "jpeg" | "original";
+  size?: number;
+  quality?: number;
+  highResolution?: boolean;
+}
+
+export interface PhotoCacheOptions {
+  maxDiskBytes?: number;
+}
+
+export interface PhotoStorageOptions {
+  maxDimension?: number;
+  quality?: number;
+}
+
+export interface SchedulerOptions {
+  readThreads?: number;
+  bulkThreads?: number;
+}
+
+export interface SchedulerLaneStats {
+  queued: number;
+  running: number;
+  completed: number;
+  averageWaitMs: number;
+  maxWaitMs: number;
+}
+
+export interface SchedulerStats {
+  interactive: SchedulerLaneStats;
+  bulk: SchedulerLaneStats;
+  write: SchedulerLaneStats;
+  readThreads: number;
+  bulkThreads: number;
+  coalescing: { started: number; joined: number };
+}
+
+export interface MetricsHistogram {
+  count: number;
+  total: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+}
+
+export interface MethodMetrics {
+  queueWaitMs: MetricsHistogram;
+  latencyMs: MetricsHistogram;
+  queryMs: MetricsHistogram;
+  iterationMs: MetricsHistogram;
+  serializationMs: MetricsHistogram;
+  rowsRead: MetricsHistogram;
+  contactsEmitted: MetricsHistogram;
+  bytesMarshalled: MetricsHistogram;
+}
+
+export interface Metrics {
+  since: number;
+  methods: { [method: string]: MethodMetrics };
+}
+
+export interface SearchIndexOptions {
+  enabled: boolean;
+}
+
+export interface PageOptions {
+  afterContactId?: string | null;
+  limit?: number;
+}
+
 export interface Group {
   identifier: string;
   name: string;
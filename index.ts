@@ -1,33 +1,190 @@
-import { NativeModules } from "react-native";
+import { NativeEventEmitter, NativeModules } from "react-native";
 import NativeContacts from "./src/NativeContacts";
-import { Contact, Group, PermissionType } from "./type";
+import {
+  AddContactsProgress,
+  AddedContact,
+  CacheOptions,
+  Contact,
+  ContactChanges,
+  ContactsPage,
+  ContactsStats,
+  Group,
+  PageOptions,
+  PermissionType,
+  PhoneNumberOptions,
+  PhotoCacheOptions,
+  PhotosOptions,
+  SchedulerOptions,
+  SearchOptions,
+  GetAllOptions,
+  PartialContacts,
+  SchedulerStats,
+  Metrics,
+  PhotoStorageOptions,
+  ReadOptions,
+  SearchIndexOptions,
+  SnapshotChanges,
+  SortedContacts,
+  SortOptions,
+  VCardExportOptions,
+  WritePhotoOptions,
+} from "./type";
 
 const Contacts = NativeModules.Contacts ?? NativeContacts;
 
-async function getAll(): Promise<Contact[]> {
-  return Contacts.getAll();
+let nextStreamId = 0;
+let nextImportId = 0;
+let nextSnapshotId = 0;
+
+function getAll(
+  options: GetAllOptions & { partialResults: true }
+): Promise<PartialContacts>;
+function getAll(options?: GetAllOptions): Promise<Contact[]>;
+async function getAll(
+  options?: GetAllOptions
+): Promise<Contact[] | PartialContacts> {
+  return Contacts.getAll(options ?? null);
 }
 
 async function getAllWithoutPhotos(): Promise<Contact[]> {
   return Contacts.getAllWithoutPhotos();
 }
 
-async function getContactById(contactId: string): Promise<Contact | null> {
-  return Contacts.getContactById(contactId);
+async function getAllSorted(options: SortOptions = {}): Promise<SortedContacts> {
+  return Contacts.getAllSorted(options);
+}
+
+async function getAllPaged(options: PageOptions = {}): Promise<ContactsPage> {
+  return Contacts.getAllPaged(options);
+}
+
+async function getAllStreamed(
+  onBatch: (contacts: Contact[]) => void,
+  batchSize: number = 100
+): Promise<number> {
+  const streamId = String(nextStreamId++);
+  const emitter = new NativeEventEmitter(Contacts);
+  const subscription = emitter.addListener(
+    "contactsBatch",
+    (event: { streamId: string; contacts: Contact[] }) => {
+      if (event.streamId === streamId) {
+        onBatch(event.contacts);
+      }
+    }
+  );
+  try {
+    return await Contacts.getAllStreamed(streamId, batchSize);
+  } finally {
+    subscription.remove();
+  }
+}
+
+async function exportVCard(
+  path: string,
+  options?: VCardExportOptions
+): Promise<number> {
+  return Contacts.exportVCard(path, options ?? null);
+}
+
+async function importVCard(path: string): Promise<number> {
+  return Contacts.importVCard(path);
+}
+
+async function getChangesSince(since: number): Promise<ContactChanges> {
+  return Contacts.getChangesSince(since);
+}
+
+async function getAllFromSnapshot(
+  onUpdate?: (changes: SnapshotChanges) => void
+): Promise<Contact[]> {
+  const snapshotId = String(nextSnapshotId++);
+  if (!onUpdate) {
+    return Contacts.getAllFromSnapshot(snapshotId);
+  }
+  const emitter = new NativeEventEmitter(Contacts);
+  const subscription = emitter.addListener(
+    "contactsSnapshotUpdated",
+    (event: { snapshotId: string } & SnapshotChanges) => {
+      if (event.snapshotId !== snapshotId) {
+        return;
+      }
+      subscription.remove();
+      if (event.updated.length > 0 || event.deletedIds.length > 0) {
+        onUpdate({ updated: event.updated, deletedIds: event.deletedIds });
+      }
+    }
+  );
+  try {
+    return await Contacts.getAllFromSnapshot(snapshotId);
+  } catch (e) {
+    // no revalidation runs after a failed read, so no event will come
+    subscription.remove();
+    throw e;
+  }
+}
+
+async function clearSnapshot(): Promise<boolean> {
+  return Contacts.clearSnapshot();
+}
+
+async function getContactById(
+  contactId: string,
+  options?: ReadOptions
+): Promise<Contact | null> {
+  return Contacts.getContactById(contactId, options ?? null);
 }
 
 async function getCount(): Promise<number> {
   return Contacts.getCount();
 }
 
+async function getStats(): Promise<ContactsStats> {
+  return Contacts.getStats();
+}
+
 async function getPhotoForId(contactId: string): Promise<string> {
   return Contacts.getPhotoForId(contactId);
 }
 
+async function getPhotoThumbnail(
+  contactId: string,
+  size: number
+): Promise<string | null> {
+  return Contacts.getPhotoThumbnail(contactId, size);
+}
+
+async function getPhotosForIds(
+  contactIds: string[],
+  options?: PhotosOptions
+): Promise<{ [contactId: string]: string | null }> {
+  return Contacts.getPhotosForIds(contactIds, options ?? null);
+}
+
 async function addContact(contact: Partial<Contact>): Promise<Contact> {
   return Contacts.addContact(contact);
 }
 
+async function addContacts(
+  contacts: Partial<Contact>[],
+  onProgress?: (progress: AddContactsProgress) => void
+): Promise<AddedContact[]> {
+  const importId = String(nextImportId++);
+  const emitter = new NativeEventEmitter(Contacts);
+  const subscription = emitter.addListener(
+    "addContactsProgress",
+    (event: { importId: string } & AddContactsProgress) => {
+      if (event.importId === importId && onProgress) {
+        onProgress({ added: event.added, total: event.total });
+      }
+    }
+  );
+  try {
+    return await Contacts.addContacts(importId, contacts);
+  } finally {
+    subscription.remove();
+  }
+}
+
 async function openContactForm(contact: Partial<Contact>): Promise<Contact> {
   return Contacts.openContactForm(contact);
 }
@@ -56,20 +213,38 @@ async function deleteContact(contact: Contact): Promise<void> {
   return Contacts.deleteContact(contact);
 }
 
-async function getContactsMatchingString(str: string): Promise<Contact[]> {
-  return Contacts.getContactsMatchingString(str);
+async function deleteContacts(
+  recordIDs: string[]
+): Promise<{ [recordID: string]: boolean }> {
+  return Contacts.deleteContacts(recordIDs);
+}
+
+async function getContactsByIds(
+  contactIds: string[],
+  options?: ReadOptions
+): Promise<{ [contactId: string]: Contact | null }> {
+  return Contacts.getContactsByIds(contactIds, options ?? null);
+}
+
+async function getContactsMatchingString(
+  str: string,
+  options?: SearchOptions
+): Promise<Contact[]> {
+  return Contacts.getContactsMatchingString(str, options ?? null);
 }
 
 async function getContactsByPhoneNumber(
-  phoneNumber: string
+  phoneNumber: string,
+  options?: PhoneNumberOptions
 ): Promise<Contact[]> {
-  return Contacts.getContactsByPhoneNumber(phoneNumber);
+  return Contacts.getContactsByPhoneNumber(phoneNumber, options ?? null);
 }
 
 async function getContactsByEmailAddress(
-  emailAddress: string
+  emailAddress: string,
+  options?: SearchOptions
 ): Promise<Contact[]> {
-  return Contacts.getContactsByEmailAddress(emailAddress);
+  return Contacts.getContactsByEmailAddress(emailAddress, options ?? null);
 }
 
 async function checkPermission(): Promise<PermissionType> {
@@ -82,9 +257,46 @@ async function requestPermission(): Promise<PermissionType> {
 
 async function writePhotoToPath(
   contactId: string,
-  file: string
+  file: string,
+  options?: WritePhotoOptions
 ): Promise<boolean> {
-  return Contacts.writePhotoToPath(contactId, file);
+  return Contacts.writePhotoToPath(contactId, file, options ?? null);
+}
+
+function configureCache(options: CacheOptions): void {
+  Contacts.configureCache?.(options);
+}
+
+function configureSearchIndex(options: SearchIndexOptions): void {
+  Contacts.configureSearchIndex?.(options);
+}
+
+function configurePhotoCache(options: PhotoCacheOptions): void {
+  Contacts.configurePhotoCache?.(options);
+}
+
+function configurePhotoStorage(options: PhotoStorageOptions): void {
+  Contacts.configurePhotoStorage?.(options);
+}
+
+function cancelRequest(requestId: string): void {
+  Contacts.cancelRequest?.(requestId);
+}
+
+function configureScheduler(options: SchedulerOptions): void {
+  Contacts.configureScheduler?.(options);
+}
+
+async function getSchedulerStats(): Promise<SchedulerStats> {
+  return Contacts.getSchedulerStats() as Promise<SchedulerStats>;
+}
+
+async function getMetrics(): Promise<Metrics> {
+  return Contacts.getMetrics() as Promise<Metrics>;
+}
+
+function resetMetrics(): void {
+  Contacts.resetMetrics?.();
 }
 
 async function getGroups(): Promise<Group[]> {
@@ -114,22 +326,45 @@ async function removeContactsFromGroup(groupIdentifier: string, contactIdentifie
 export default {
   getAll,
   getAllWithoutPhotos,
+  getAllSorted,
+  getAllPaged,
+  getAllStreamed,
+  getChangesSince,
+  getAllFromSnapshot,
+  clearSnapshot,
   getContactById,
+  getContactsByIds,
   getCount,
+  getStats,
   getPhotoForId,
+  getPhotoThumbnail,
+  getPhotosForIds,
   addContact,
+  addContacts,
+  exportVCard,
+  importVCard,
   openContactForm,
   openExistingContact,
   viewExistingContact,
   editExistingContact,
   updateContact,
   deleteContact,
+  deleteContacts,
   getContactsMatchingString,
   getContactsByPhoneNumber,
   getContactsByEmailAddress,
   checkPermission,
   requestPermission,
   writePhotoToPath,
+  configureCache,
+  configureSearchIndex,
+  configurePhotoCache,
+  configurePhotoStorage,
+  cancelRequest,
+  configureScheduler,
+  getSchedulerStats,
+  getMetrics,
+  resetMetrics,
   getGroups,
   getGroup,
   deleteGroup,
@@ -88,7 +88,8 @@ RCT_EXPORT_METHOD(iosEnableNotesUsage:(BOOL) enabled)
     notesUsageEnabled = enabled;
 }
 
-RCT_EXPORT_METHOD(getContactsMatchingString:(NSString *)string resolver:(RCTPromiseResolveBlock) resolve
+RCT_EXPORT_METHOD(getContactsMatchingString:(NSString *)string options:(NSDictionary *)options
+    resolver:(RCTPromiseResolveBlock) resolve
     rejecter:(RCTPromiseRejectBlock) reject)
 {
     CNContactStore *contactStore = [[CNContactStore alloc] init];
@@ -132,7 +133,8 @@ RCT_EXPORT_METHOD(getContactsMatchingString:(NSString *)string resolver:(RCTProm
     resolve(contacts);
 }
 
-RCT_EXPORT_METHOD(getContactsByPhoneNumber:(NSString *)string resolver:(RCTPromiseResolveBlock) resolve
+RCT_EXPORT_METHOD(getContactsByPhoneNumber:(NSString *)string options:(NSDictionary *)options
+    resolver:(RCTPromiseResolveBlock) resolve
     rejecter:(RCTPromiseRejectBlock) __unused reject)
 {
     CNContactStore *contactStore = [[CNContactStore alloc] init];
@@ -174,6 +176,7 @@ RCT_EXPORT_METHOD(getContactsByPhoneNumber:(NSString *)string resolver:(RCTPromi
 }
 
 RCT_EXPORT_METHOD(getContactsByEmailAddress:(NSString *)string
+    options:(NSDictionary *)options
     resolver:(RCTPromiseResolveBlock) resolve
     rejecter:(RCTPromiseRejectBlock) __unused reject)
 {
@@ -267,7 +270,7 @@ RCT_EXPORT_METHOD(getContactsByEmailAddress:(NSString *)string
     resolve(count);
 }
 
-RCT_EXPORT_METHOD(getAll:(RCTPromiseResolveBlock) resolve rejecter:(RCTPromiseRejectBlock)reject)
+RCT_EXPORT_METHOD(getAll:(NSDictionary *)options resolver:(RCTPromiseResolveBlock) resolve rejecter:(RCTPromiseRejectBlock)reject)
 {
     [self getAllContacts:resolve reject:reject withThumbnails:true];
 }
@@ -600,7 +603,7 @@ RCT_EXPORT_METHOD(getPhotoForId:(nonnull NSString *)recordID resolver:(RCTPromis
 }
 
 
-RCT_EXPORT_METHOD(getContactById:(nonnull NSString *)recordID resolver:(RCTPromiseResolveBlock)resolve
+RCT_EXPORT_METHOD(getContactById:(nonnull NSString *)recordID options:(NSDictionary *)options resolver:(RCTPromiseResolveBlock)resolve
     rejecter:(RCTPromiseRejectBlock)reject)
 {
     CNContactStore *contactStore = [self contactsStore:reject];
@@ -1231,7 +1234,7 @@ RCT_EXPORT_METHOD(deleteContact:(NSDictionary *)contactData resolver:(RCTPromise
     }
 }
 
-RCT_EXPORT_METHOD(writePhotoToPath:(nonnull NSString *)path resolver:(RCTPromiseResolveBlock) resolve rejecter:(RCTPromiseRejectBlock) reject)
+RCT_EXPORT_METHOD(writePhotoToPath:(nonnull NSString *)contactId file:(NSString *)file options:(NSDictionary *)options resolver:(RCTPromiseResolveBlock) resolve rejecter:(RCTPromiseRejectBlock) reject)
 {
     @try {
         //Nothing is implemented here
@@ -1653,7 +1656,7 @@ RCT_EXPORT_METHOD(removeContactsFromGroup:(NSString *)groupId
 
 #endif
 
-- (void)getAll:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+- (void)getAll:(NSDictionary *)options resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
     [self getAllContacts:resolve reject:reject withThumbnails:true];
 }
 
@@ -1797,7 +1800,7 @@ RCT_EXPORT_METHOD(removeContactsFromGroup:(NSString *)groupId
  }
 
 
-- (void)getContactById:(nonnull NSString *)recordID resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+- (void)getContactById:(nonnull NSString *)recordID options:(NSDictionary *)options resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
     CNContactStore *contactStore = [self contactsStore:reject];
     if (!contactStore)
         return;
@@ -1821,7 +1824,7 @@ RCT_EXPORT_METHOD(removeContactsFromGroup:(NSString *)groupId
 }
 
 
- - (void)getContactsByEmailAddress:(NSString *)string resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+ - (void)getContactsByEmailAddress:(NSString *)string options:(NSDictionary *)options resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
      CNContactStore *contactStore = [[CNContactStore alloc] init];
         if (!contactStore)
             return;
@@ -1829,7 +1832,7 @@ RCT_EXPORT_METHOD(removeContactsFromGroup:(NSString *)groupId
  }
 
 
- - (void)getContactsByPhoneNumber:(NSString *)string resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+ - (void)getContactsByPhoneNumber:(NSString *)string options:(NSDictionary *)options resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
      CNContactStore *contactStore = [[CNContactStore alloc] init];
          if (!contactStore)
              return;
@@ -1837,7 +1840,7 @@ RCT_EXPORT_METHOD(removeContactsFromGroup:(NSString *)groupId
  }
 
 
- - (void)getContactsMatchingString:(NSString *)string resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+ - (void)getContactsMatchingString:(NSString *)string options:(NSDictionary *)options resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
      CNContactStore *contactStore = [[CNContactStore alloc] init];
          if (!contactStore)
              return;
@@ -2077,7 +2080,7 @@ RCT_EXPORT_METHOD(removeContactsFromGroup:(NSString *)groupId
  }
 
 
- - (void)writePhotoToPath:(NSString *)contactId file:(NSString *)file resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
+ - (void)writePhotoToPath:(NSString *)contactId file:(NSString *)file options:(NSDictionary *)options resolve:(RCTPromiseResolveBlock)resolve reject:(RCTPromiseRejectBlock)reject {
      reject(@"Error", @"not implemented", nil);
  }
 
@@ -1,27 +1,52 @@
 import type { TurboModule } from "react-native/Libraries/TurboModule/RCTExport";
 import { TurboModuleRegistry } from "react-native";
-import { Contact, Group, PermissionType } from "../type";
+import { AddedContact, Contact, ContactChanges, ContactsPage, ContactsStats, Group, PermissionType, SortedContacts } from "../type";
 
 export interface Spec extends TurboModule {
-  getAll: () => Promise<any>;
+  getAll: (options: Object | null) => Promise<any>;
   getAllWithoutPhotos: () => Promise<Contact[]>;
-  getContactById: (contactId: string) => Promise<Contact>;
+  getAllSorted?: (options: Object) => Promise<SortedContacts>;
+  getAllPaged?: (options: Object) => Promise<ContactsPage>;
+  getAllStreamed?: (streamId: string, batchSize: number) => Promise<number>;
+  getChangesSince?: (since: number) => Promise<ContactChanges>;
+  getAllFromSnapshot?: (snapshotId: string) => Promise<Contact[]>;
+  clearSnapshot?: () => Promise<boolean>;
+  getContactById: (contactId: string, options: Object | null) => Promise<Contact>;
+  getContactsByIds?: (contactIds: string[], options: Object | null) => Promise<Object>;
   getCount: () => Promise<number>;
+  getStats?: () => Promise<ContactsStats>;
   getPhotoForId: (contactId: string) => Promise<string>;
+  getPhotoThumbnail?: (contactId: string, size: number) => Promise<string | null>;
+  getPhotosForIds?: (contactIds: string[], options: Object | null) => Promise<Object>;
   addContact: (contact: Object) => Promise<any>;
+  addContacts?: (importId: string, contacts: Object[]) => Promise<AddedContact[]>;
+  exportVCard?: (path: string, options: Object | null) => Promise<number>;
+  importVCard?: (path: string) => Promise<number>;
   openContactForm: (contact: Object) => Promise<Contact>;
   openExistingContact: (contact: Object) => Promise<Contact>;
   viewExistingContact: (contact: { recordID: string }) => Promise<Contact>;
   editExistingContact: (contact: Object) => Promise<Contact>;
   updateContact: (contact: Object) => Promise<void>;
   deleteContact: (contact: Object) => Promise<void>;
-  getContactsMatchingString: (str: string) => Promise<Contact[]>;
-  getContactsByPhoneNumber: (phoneNumber: string) => Promise<Contact[]>;
-  getContactsByEmailAddress: (emailAddress: string) => Promise<Contact[]>;
+  deleteContacts?: (recordIDs: string[]) => Promise<Object>;
+  getContactsMatchingString: (str: string, options: Object | null) => Promise<Contact[]>;
+  getContactsByPhoneNumber: (phoneNumber: string, options: Object | null) => Promise<Contact[]>;
+  getContactsByEmailAddress: (emailAddress: string, options: Object | null) => Promise<Contact[]>;
   checkPermission: () => Promise<PermissionType>;
   requestPermission: () => Promise<PermissionType>;
-  writePhotoToPath: (contactId: string, file: string) => Promise<boolean>;
+  writePhotoToPath: (contactId: string, file: string, options: Object | null) => Promise<boolean>;
   iosEnableNotesUsage: (enabled: boolean) => void;
+  configureCache?: (options: Object) => void;
+  configureSearchIndex?: (options: Object) => void;
+  configurePhotoCache?: (options: Object) => void;
+  configurePhotoStorage?: (options: Object) => void;
+  cancelRequest?: (requestId: string) => void;
+  configureScheduler?: (options: Object) => void;
+  getSchedulerStats?: () => Promise<Object>;
+  getMetrics?: () => Promise<Object>;
+  resetMetrics?: () => void;
+  addListener?: (eventName: string) => void;
+  removeListeners?: (count: number) => void;
   getGroups?: () => Promise<Group[]>;
   getGroup?: (identifier: string) => Promise<Group | null>;
   deleteGroup?: (identifier: string) => Promise<boolean>;
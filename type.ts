@@ -61,6 +61,195 @@ export interface Contact {
   note: string;
 }
 
+export type ContactField =
+  | "recordID"
+  | "rawContactId"
+  | "displayName"
+  | "givenName"
+  | "middleName"
+  | "familyName"
+  | "prefix"
+  | "suffix"
+  | "hasThumbnail"
+  | "thumbnailPath"
+  | "isStarred"
+  | "phoneNumbers"
+  | "emailAddresses"
+  | "company"
+  | "jobTitle"
+  | "department"
+  | "postalAddresses"
+  | "note"
+  | "urlAddresses"
+  | "imAddresses"
+  | "birthday";
+
+export interface ReadOptions {
+  fields?: ContactField[];
+}
+
+export interface GetAllOptions extends ReadOptions {
+  timeoutMs?: number;
+  partialResults?: boolean;
+  continuation?: string | null;
+}
+
+export interface PartialContacts {
+  contacts: Contact[];
+  continuation: string | null;
+}
+
+export interface SearchOptions extends ReadOptions {
+  requestId?: string;
+}
+
+export interface PhoneNumberOptions extends SearchOptions {
+  exact?: boolean;
+  substringFallback?: boolean;
+}
+
+export type SortBy =
+  | "displayName"
+  | "displayNameAlternative"
+  | "familyName"
+  | "lastUpdated";
+
+export interface SortOptions extends ReadOptions {
+  sortBy?: SortBy;
+}
+
+export interface Section {
+  title: string;
+  offset: number;
+  count: number;
+}
+
+export interface SortedContacts {
+  contacts: Contact[];
+  sections: Section[];
+}
+
+export interface AddedContact {
+  recordID: string;
+  rawContactId: string;
+}
+
+export interface AddContactsProgress {
+  added: number;
+  total: number;
+}
+
+export interface VCardExportOptions {
+  contactIds?: string[];
+}
+
+export interface ContactsPage {
+  contacts: Contact[];
+  nextCursor: string | null;
+}
+
+export interface PageOptions {
+  afterContactId?: string | null;
+  limit?: number;
+}
+
+export interface ContactsStats {
+  total: number;
+  starred: number;
+  withPhoneNumber: number;
+  byMimeType: { [mimeType: string]: number };
+  byAccount: { type: string | null; name: string | null; count: number }[];
+}
+
+export interface ContactChanges {
+  updated: Contact[];
+  deletedIds: string[];
+  timestamp: number;
+}
+
+export interface SnapshotChanges {
+  updated: Contact[];
+  deletedIds: string[];
+}
+
+export interface CacheOptions {
+  enabled: boolean;
+  maxBytes?: number;
+}
+
+export interface PhotosOptions {
+  size?: number;
+  writeToDir?: string;
+}
+
+export interface WritePhotoOptions {
+  format?: "png" | "jpeg" | "original";
+  size?: number;
+  quality?: number;
+  highResolution?: boolean;
+}
+
+export interface PhotoCacheOptions {
+  maxDiskBytes?: number;
+}
+
+export interface PhotoStorageOptions {
+  maxDimension?: number;
+  quality?: number;
+}
+
+export interface SchedulerOptions {
+  readThreads?: number;
+  bulkThreads?: number;
+}
+
+export interface SchedulerLaneStats {
+  queued: number;
+  running: number;
+  completed: number;
+  averageWaitMs: number;
+  maxWaitMs: number;
+}
+
+export interface SchedulerStats {
+  interactive: SchedulerLaneStats;
+  bulk: SchedulerLaneStats;
+  write: SchedulerLaneStats;
+  readThreads: number;
+  bulkThreads: number;
+  coalescing: { started: number; joined: number };
+}
+
+export interface MetricsHistogram {
+  count: number;
+  total: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+}
+
+export interface MethodMetrics {
+  queueWaitMs: MetricsHistogram;
+  latencyMs: MetricsHistogram;
+  queryMs: MetricsHistogram;
+  iterationMs: MetricsHistogram;
+  serializationMs: MetricsHistogram;
+  rowsRead: MetricsHistogram;
+  contactsEmitted: MetricsHistogram;
+  bytesMarshalled: MetricsHistogram;
+}
+
+export interface Metrics {
+  since: number;
+  methods: { [method: string]: MethodMetrics };
+}
+
+export interface SearchIndexOptions {
+  enabled: boolean;
+}
+
 export interface Group {
   identifier: string;
   name: string;